@@ -86,7 +86,9 @@ public enum ClientToServerModel {
     HANDLER_SCROLL_VERTICAL("M"),
     HANDLER_SCROLL_HORIZONTAL("N"),
 
-    APPLICATION_ID("O");
+    APPLICATION_ID("O"),
+
+    PROTOCOL_VERSION("P");
 
     private String key;
 
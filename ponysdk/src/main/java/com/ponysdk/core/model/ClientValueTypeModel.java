@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.model;
+
+/**
+ * Type of the values sent by the terminal with {@link ProtocolVersion#BINARY_CLIENT_DATA}.<br>
+ * A binary frame is an object : a varint count followed by the entries, each entry being the
+ * ordinal of its {@link ClientToServerModel} key on one byte followed by its value.<br>
+ * A value is the ordinal of its type on one byte followed by its payload.
+ */
+public enum ClientValueTypeModel {
+
+    NULL,
+    TRUE,
+    FALSE,
+    /**
+     * Zigzag encoded varint
+     */
+    INTEGER,
+    /**
+     * 8 bytes big-endian
+     */
+    DOUBLE,
+    /**
+     * Varint length followed by the UTF-8 bytes
+     */
+    STRING,
+    /**
+     * Object whose keys are all {@link ClientToServerModel} : varint count followed by the entries
+     */
+    OBJECT,
+    /**
+     * Varint count followed by the values
+     */
+    ARRAY,
+    /**
+     * Any other JSON value (e.g. native data), as a STRING containing its JSON text
+     */
+    JSON;
+
+    private static final ClientValueTypeModel[] VALUES = values();
+
+    public final byte getValue() {
+        return (byte) ordinal();
+    }
+
+    public static ClientValueTypeModel fromValue(final byte value) {
+        return VALUES[value];
+    }
+
+}
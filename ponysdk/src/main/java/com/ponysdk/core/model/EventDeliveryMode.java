@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.model;
+
+/**
+ * How the terminal delivers the events of a DOM handler to the server, the delay is sent with the
+ * mode
+ */
+public enum EventDeliveryMode {
+
+    /**
+     * The first event is sent, the next ones are dropped until no event occurred during the delay
+     */
+    LEADING_DEBOUNCE,
+    /**
+     * Only the last event is sent, once no event occurred during the delay
+     */
+    TRAILING_DEBOUNCE,
+    /**
+     * At most one event is sent per delay, the last event of a period is sent at its end
+     */
+    THROTTLE,
+    /**
+     * Only the last event raised before the pending instructions are sent is kept, the delay is
+     * not used
+     */
+    LATEST;
+
+    private static final EventDeliveryMode[] VALUES = values();
+
+    public final byte getValue() {
+        return (byte) ordinal();
+    }
+
+    public static EventDeliveryMode fromValue(final byte value) {
+        return VALUES[value];
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.model;
+
+/**
+ * Version of the binary protocol spoken between the server and the terminal.<br>
+ * The terminal announces the highest version it supports when it opens the WebSocket, the server
+ * answers with the negotiated one in the {@link ServerToClientModel#CREATE_CONTEXT} block. A
+ * terminal that doesn't announce anything is considered as {@link #LEGACY}.
+ */
+public enum ProtocolVersion {
+
+    /**
+     * LONG and DOUBLE values are sent as UTF-8 strings
+     */
+    LEGACY,
+
+    /**
+     * LONG and DOUBLE values are sent as 8 bytes big-endian values
+     */
+    BINARY_NUMBERS,
+
+    /**
+     * Frequent STRING values sent to the main terminal can be replaced by the ID of a session scoped
+     * dictionary entry, see {@link ValueTypeModel#STRING_DEFINITION} and
+     * {@link ValueTypeModel#STRING_REFERENCE}
+     */
+    STRING_DICTIONARY,
+
+    /**
+     * Model keys are sent on one byte (see {@link ServerToClientModel#COMPACT_KEY_ESCAPE}) and
+     * INTEGER values as unsigned LEB128 varints
+     */
+    COMPACT_ENCODING,
+
+    /**
+     * The terminal sends its instructions as binary frames instead of JSON text, see
+     * {@link ClientValueTypeModel}
+     */
+    BINARY_CLIENT_DATA,
+
+    /**
+     * The objects garbage collected are released with one {@link ServerToClientModel#TYPE_GC_BATCH}
+     * per window and frame instead of one {@link ServerToClientModel#TYPE_GC} per object, see
+     * {@link ValueTypeModel#INTEGER_ARRAY}
+     */
+    BATCHED_GC;
+
+    private static final ProtocolVersion[] VERSIONS = values();
+
+    public static final ProtocolVersion CURRENT = VERSIONS[VERSIONS.length - 1];
+
+    public final byte getValue() {
+        return (byte) ordinal();
+    }
+
+    public final boolean isSupporting(final ProtocolVersion version) {
+        return ordinal() >= version.ordinal();
+    }
+
+    public static ProtocolVersion fromValue(final int value) {
+        if (value <= 0) return LEGACY;
+        else if (value >= CURRENT.ordinal()) return CURRENT;
+        else return VERSIONS[value];
+    }
+
+    /**
+     * @return the highest version supported by both sides, {@link #LEGACY} if the remote version is
+     *         unknown
+     */
+    public static ProtocolVersion negotiate(final String remoteVersion) {
+        return negotiate(remoteVersion, CURRENT);
+    }
+
+    /**
+     * @param maxVersion
+     *            the highest version allowed locally
+     * @return the highest version supported by both sides, {@link #LEGACY} if the remote version is
+     *         unknown
+     */
+    public static ProtocolVersion negotiate(final String remoteVersion, final ProtocolVersion maxVersion) {
+        if (remoteVersion == null || remoteVersion.isEmpty()) return LEGACY;
+        try {
+            final ProtocolVersion version = fromValue(Integer.parseInt(remoteVersion));
+            return maxVersion.isSupporting(version) ? version : maxVersion;
+        } catch (final NumberFormatException e) {
+            return LEGACY;
+        }
+    }
+
+}
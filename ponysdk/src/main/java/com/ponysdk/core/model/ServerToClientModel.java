@@ -234,7 +234,25 @@ public enum ServerToClientModel {
     DISCLOSURE_PANEL_CLOSE_IMG(ValueTypeModel.INTEGER),
     SUGGESTIONS(ValueTypeModel.STRING),
     DEFAULT_SUGGESTIONS(ValueTypeModel.STRING),
-    TEXTBOX_ID(ValueTypeModel.INTEGER);
+    TEXTBOX_ID(ValueTypeModel.INTEGER),
+
+    // Appended to keep the ordinals understood by older terminals
+    PROTOCOL_VERSION(ValueTypeModel.BYTE),
+    TERMINAL_BATCH_WINDOW(ValueTypeModel.INTEGER),
+    DOM_HANDLER_DELIVERY(ValueTypeModel.BYTE),
+    DOM_HANDLER_DELIVERY_DELAY(ValueTypeModel.INTEGER),
+    BROADCAST_CHANNEL(ValueTypeModel.STRING),
+    TYPE_GC_BATCH(ValueTypeModel.INTEGER_ARRAY),
+    MOVE_ROW(ValueTypeModel.INTEGER),
+    INSERT_COLUMN(ValueTypeModel.INTEGER),
+    REMOVE_COLUMN(ValueTypeModel.INTEGER),
+    MOVE_COLUMN(ValueTypeModel.INTEGER);
+
+    /**
+     * With {@link ProtocolVersion#COMPACT_ENCODING}, the key of a model is its ordinal on one
+     * unsigned byte, or this byte followed by the ordinal on a short if it doesn't fit
+     */
+    public static final byte COMPACT_KEY_ESCAPE = (byte) 0xFF;
 
     private final ValueTypeModel type;
 
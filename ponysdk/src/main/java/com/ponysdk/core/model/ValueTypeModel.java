@@ -30,10 +30,28 @@ public enum ValueTypeModel {
     BYTE((byte) 1),
     SHORT((byte) 2),
     INTEGER((byte) 4),
-    LONG((byte) 8), // FIXME
-    DOUBLE((byte) 16), // FIXME
+    LONG((byte) 8),
+    DOUBLE((byte) 8),
     STRING((byte) -1),
-    JSON_OBJECT((byte) -1);
+    JSON_OBJECT((byte) -1),
+    /**
+     * An INTEGER count followed by the values : big-endian ints, or with
+     * {@link ProtocolVersion#COMPACT_ENCODING} zigzag varint deltas from the previous value
+     */
+    INTEGER_ARRAY((byte) -1);
+
+    /**
+     * With {@link ProtocolVersion#STRING_DICTIONARY}, a STRING value starting with this byte defines
+     * a dictionary entry : a varint ID followed by the usual length and UTF-8 bytes.<br>
+     * A STRING value whose first byte is lower than 0x80 is a plain length-prefixed string.
+     */
+    public static final byte STRING_DEFINITION = (byte) 0xFE;
+
+    /**
+     * With {@link ProtocolVersion#STRING_DICTIONARY}, a STRING value starting with this byte is only
+     * followed by the varint ID of a previously defined dictionary entry
+     */
+    public static final byte STRING_REFERENCE = (byte) 0xFF;
 
     private final int size;
 
@@ -27,11 +27,13 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.json.JsonObject;
 import javax.servlet.http.HttpSession;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ponysdk.core.server.servlet.Broadcaster;
 import com.ponysdk.core.server.servlet.SessionManager;
 import com.ponysdk.core.useragent.UserAgent;
 
@@ -63,10 +65,12 @@ public class Application {
 
     public void registerUIContext(final UIContext uiContext) {
         uiContexts.put(uiContext.getID(), uiContext);
+        UIContextIndex.get().register(uiContext);
     }
 
     void unregisterUIContext(final int uiContextID) {
-        uiContexts.remove(uiContextID);
+        final UIContext uiContext = uiContexts.remove(uiContextID);
+        if (uiContext != null) UIContextIndex.get().unregister(uiContext);
         if (uiContexts.isEmpty()) {
             session.invalidate();
             SessionManager.get().unregisterApplication(this);
@@ -75,6 +79,7 @@ public class Application {
 
     public void destroy() {
         uiContexts.values().forEach(uiContext -> {
+            UIContextIndex.get().unregister(uiContext);
             try {
                 uiContext.destroyFromApplication();
             } catch (final Exception e) {
@@ -112,6 +117,14 @@ public class Application {
         }
     }
 
+    /**
+     * Sends the data to the terminals of all the UIContexts of this application, it is encoded once
+     * for all of them, see {@link Broadcaster}
+     */
+    public void broadcast(final String channel, final JsonObject data) {
+        Broadcaster.broadcast(getUIContexts(), channel, data);
+    }
+
     public void setAttribute(final String name, final Object value) {
         attributes.put(name, value);
     }
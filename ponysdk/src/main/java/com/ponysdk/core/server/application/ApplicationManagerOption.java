@@ -27,6 +27,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import com.ponysdk.core.model.ProtocolVersion;
+import com.ponysdk.core.server.servlet.FlushMode;
 import com.ponysdk.core.ui.main.EntryPoint;
 
 public class ApplicationManagerOption {
@@ -48,6 +50,22 @@ public class ApplicationManagerOption {
 
     private int sessionTimeout = 15; // minutes
 
+    private int stringDictionarySize = 4096; // entries, 0 to disable
+
+    private ProtocolVersion maxProtocolVersion = ProtocolVersion.CURRENT;
+
+    private boolean updateCoalescing;
+    private int maxConflatedUpdates = 100_000; // updates per UIContext
+
+    private FlushMode flushMode = FlushMode.IMMEDIATE;
+    private long flushWindow = 10; // ms
+    private int flushSizeThreshold = 1024; // bytes
+
+    private int terminalBatchWindow; // ms, 0 to batch the instructions of the same event loop turn
+
+    private ExecutionMode executionMode = ExecutionMode.LOCK;
+    private int mailboxBatchSize = 64; // tasks per transaction
+
     private String communicationErrorFunction;
 
     private Set<String> meta;
@@ -123,6 +141,126 @@ public class ApplicationManagerOption {
         this.sessionTimeout = sessionTimeout;
     }
 
+    public int getStringDictionarySize() {
+        return stringDictionarySize;
+    }
+
+    /**
+     * Maximum number of entries of the per UIContext dictionary used to avoid sending the same
+     * strings (style names, property keys, ...) again and again to the terminal. 0 disables the
+     * dictionary.
+     */
+    public void setStringDictionarySize(final int stringDictionarySize) {
+        this.stringDictionarySize = stringDictionarySize;
+    }
+
+    public ProtocolVersion getMaxProtocolVersion() {
+        return maxProtocolVersion;
+    }
+
+    /**
+     * Highest protocol version the server accepts to negotiate with the terminals, lower it to
+     * disable the newest encodings
+     */
+    public void setMaxProtocolVersion(final ProtocolVersion maxProtocolVersion) {
+        this.maxProtocolVersion = maxProtocolVersion;
+    }
+
+    public boolean isUpdateCoalescing() {
+        return updateCoalescing;
+    }
+
+    /**
+     * If true, the updates of an object are buffered and merged into a single instruction until
+     * another kind of instruction is written or the transaction is flushed
+     */
+    public void setUpdateCoalescing(final boolean updateCoalescing) {
+        this.updateCoalescing = updateCoalescing;
+    }
+
+    public int getMaxConflatedUpdates() {
+        return maxConflatedUpdates;
+    }
+
+    /**
+     * Maximum number of updates buffered for a congested terminal, the overridden ones excluded.
+     * The UIContext is closed when it is reached, the terminal can't catch up anymore.
+     */
+    public void setMaxConflatedUpdates(final int maxConflatedUpdates) {
+        this.maxConflatedUpdates = maxConflatedUpdates;
+    }
+
+    public FlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    /**
+     * Controls when the instructions written by the transactions are sent to the terminals, see
+     * {@link FlushMode}
+     */
+    public void setFlushMode(final FlushMode flushMode) {
+        this.flushMode = flushMode;
+    }
+
+    public long getFlushWindow() {
+        return flushWindow;
+    }
+
+    /**
+     * Maximum delay in milliseconds before the pending data are sent, unused with
+     * {@link FlushMode#IMMEDIATE}
+     */
+    public void setFlushWindow(final long flushWindow) {
+        this.flushWindow = flushWindow;
+    }
+
+    public int getFlushSizeThreshold() {
+        return flushSizeThreshold;
+    }
+
+    /**
+     * Size in bytes of pending data that triggers an immediate flush with
+     * {@link FlushMode#SIZE_THRESHOLD}
+     */
+    public void setFlushSizeThreshold(final int flushSizeThreshold) {
+        this.flushSizeThreshold = flushSizeThreshold;
+    }
+
+    public int getTerminalBatchWindow() {
+        return terminalBatchWindow;
+    }
+
+    /**
+     * Delay in milliseconds during which the terminals gather their instructions before sending
+     * them in a single message, 0 to only gather the instructions raised in the same event loop
+     * turn
+     */
+    public void setTerminalBatchWindow(final int terminalBatchWindow) {
+        this.terminalBatchWindow = terminalBatchWindow;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * How the tasks of the UIContexts are run, see {@link ExecutionMode}
+     */
+    public void setExecutionMode(final ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getMailboxBatchSize() {
+        return mailboxBatchSize;
+    }
+
+    /**
+     * Maximum number of tasks run in a single transaction with {@link ExecutionMode#MAILBOX}
+     */
+    public void setMailboxBatchSize(final int mailboxBatchSize) {
+        this.mailboxBatchSize = mailboxBatchSize;
+    }
+
     public Set<String> getJavascript() {
         return javascript;
     }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.application;
+
+/**
+ * How the tasks of a {@link UIContext} ({@link UIContext#execute(Runnable)}, scheduled tasks,
+ * pushed data...) are run
+ */
+public enum ExecutionMode {
+
+    /**
+     * The submitting thread takes the lock of the UIContext and runs the task in its own
+     * transaction, it waits while another thread holds the lock
+     */
+    LOCK,
+
+    /**
+     * The task is queued in the mailbox of the UIContext and the submitting thread returns
+     * immediately. A shared pool of workers drains the mailboxes, one worker at a time for a
+     * UIContext, and runs the tasks queued together in a single transaction.
+     */
+    MAILBOX,
+
+    /**
+     * Same as {@link #MAILBOX}, but the mailboxes are drained on virtual threads and the stream
+     * requests are handled on virtual threads, so the tasks blocking on I/O don't hold platform
+     * threads. Requires a JDK 21+ runtime, {@link #MAILBOX} is used otherwise.
+     */
+    VIRTUAL_THREAD
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.application;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ponysdk.core.model.ServerToClientModel;
+import com.ponysdk.core.ui.basic.PObject;
+import com.ponysdk.core.ui.basic.PWindow;
+import com.ponysdk.core.writer.ModelWriter;
+
+/**
+ * Weak references to the {@link PObject}s of a UIContext, by object ID.<br>
+ * A single open-addressing table stores one entry per object : the weak reference itself, that
+ * also holds the object ID, the window ID and the frame ID. The entries of the objects garbage
+ * collected are only removed by {@link #expungeStaleEntries(ModelWriter, boolean)}, once per
+ * transaction, and the terminal is told to release them in bulk.<br>
+ * Only accessed with the UIContext lock.
+ */
+final class PObjectRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PObjectRegistry.class);
+
+    private static final int NO_FRAME = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    // Keeps a GC instruction far below the size of a WebSocket frame
+    private static final int MAX_GC_BATCH_SIZE = 4096;
+
+    private static final Comparator<Entry> STALE_ENTRY_ORDER = Comparator.<Entry> comparingInt(entry -> entry.windowID)
+        .thenComparingInt(entry -> entry.frameID).thenComparingInt(entry -> entry.objectID);
+
+    private final ReferenceQueue<PObject> queue = new ReferenceQueue<>();
+
+    // Linear probing, the capacity is a power of 2 and the table is at most 3/4 full
+    private Entry[] entries = new Entry[INITIAL_CAPACITY];
+    private int shift = Integer.numberOfLeadingZeros(INITIAL_CAPACITY - 1);
+    private int size;
+
+    // Reused between expunges
+    private Entry[] staleEntries = new Entry[16];
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the object, null if it is unknown or already garbage collected
+     */
+    PObject get(final int objectID) {
+        final int index = indexOf(objectID);
+        return index != -1 ? entries[index].get() : null;
+    }
+
+    void put(final PObject object) {
+        final int objectID = object.getID();
+        final Entry entry = new Entry(object, queue, objectID, object.getWindow().getID(),
+            object.getFrame() != null ? object.getFrame().getID() : NO_FRAME);
+
+        final int mask = entries.length - 1;
+        int index = slot(objectID);
+        Entry current;
+        while ((current = entries[index]) != null) {
+            if (current.objectID == objectID) {
+                current.clear();
+                entries[index] = entry;
+                return;
+            }
+            index = index + 1 & mask;
+        }
+        entries[index] = entry;
+        if (++size > entries.length - (entries.length >>> 2)) resize();
+
+        if (log.isDebugEnabled()) log.debug("Registering object: " + object);
+    }
+
+    /**
+     * @return the removed object, null if it is unknown or already garbage collected
+     */
+    PObject remove(final int objectID) {
+        final int index = indexOf(objectID);
+        if (index == -1) return null;
+        final Entry entry = entries[index];
+        delete(index);
+        if (log.isDebugEnabled()) log.debug("Removing reference on object #" + objectID);
+        // A cleared reference is not enqueued anymore, the terminal doesn't have to release it
+        final PObject object = entry.get();
+        entry.clear();
+        return object;
+    }
+
+    /**
+     * Removes the entries of the objects garbage collected since the last call, and writes the
+     * instructions releasing them on the terminal
+     *
+     * @param batched
+     *            true to write one {@link ServerToClientModel#TYPE_GC_BATCH} per window and frame,
+     *            false to write one {@link ServerToClientModel#TYPE_GC} per object
+     */
+    void expungeStaleEntries(final ModelWriter writer, final boolean batched) {
+        int count = 0;
+        Entry entry;
+        while ((entry = (Entry) queue.poll()) != null) {
+            final int index = indexOf(entry.objectID);
+            // Replaced or removed in the meantime
+            if (index == -1 || entries[index] != entry) continue;
+            delete(index);
+            if (count == staleEntries.length) staleEntries = Arrays.copyOf(staleEntries, count << 1);
+            staleEntries[count++] = entry;
+        }
+        if (count == 0) return;
+
+        if (log.isDebugEnabled()) log.debug("Removing references on {} objects", count);
+        if (batched) writeBatches(writer, count);
+        else writeObjects(writer, count);
+    }
+
+    private void writeObjects(final ModelWriter writer, final int count) {
+        final int mainWindowID = PWindow.getMain().getID();
+        for (int i = 0; i < count; i++) {
+            final Entry staleEntry = staleEntries[i];
+            staleEntries[i] = null;
+            writer.beginObject();
+            if (staleEntry.windowID != mainWindowID) writer.write(ServerToClientModel.WINDOW_ID, staleEntry.windowID);
+            if (staleEntry.frameID != NO_FRAME) writer.write(ServerToClientModel.FRAME_ID, staleEntry.frameID);
+            writer.write(ServerToClientModel.TYPE_GC, staleEntry.objectID);
+            writer.endObject();
+        }
+    }
+
+    private void writeBatches(final ModelWriter writer, final int count) {
+        // One instruction per window and frame, with the sorted IDs of its objects
+        Arrays.sort(staleEntries, 0, count, STALE_ENTRY_ORDER);
+        final int mainWindowID = PWindow.getMain().getID();
+        int start = 0;
+        while (start < count) {
+            final Entry first = staleEntries[start];
+            int end = start + 1;
+            while (end < count && end - start < MAX_GC_BATCH_SIZE && staleEntries[end].windowID == first.windowID
+                    && staleEntries[end].frameID == first.frameID) {
+                end++;
+            }
+
+            final int[] objectIDs = new int[end - start];
+            for (int i = start; i < end; i++) {
+                objectIDs[i - start] = staleEntries[i].objectID;
+                staleEntries[i] = null;
+            }
+
+            writer.beginObject();
+            if (first.windowID != mainWindowID) writer.write(ServerToClientModel.WINDOW_ID, first.windowID);
+            if (first.frameID != NO_FRAME) writer.write(ServerToClientModel.FRAME_ID, first.frameID);
+            writer.write(ServerToClientModel.TYPE_GC_BATCH, objectIDs);
+            writer.endObject();
+            start = end;
+        }
+    }
+
+    private int slot(final int objectID) {
+        // Fibonacci hashing, the consecutive IDs are spread over the table
+        return objectID * 0x9E3779B9 >>> shift;
+    }
+
+    private int indexOf(final int objectID) {
+        final int mask = entries.length - 1;
+        int index = slot(objectID);
+        Entry entry;
+        while ((entry = entries[index]) != null) {
+            if (entry.objectID == objectID) return index;
+            index = index + 1 & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Backward shift deletion : the next entries of the probe sequence are moved up, so there is
+     * no tombstone
+     */
+    private void delete(int index) {
+        final int mask = entries.length - 1;
+        entries[index] = null;
+        size--;
+        int next = index;
+        Entry entry;
+        while ((entry = entries[next = next + 1 & mask]) != null) {
+            final int slot = slot(entry.objectID);
+            // The entry can move to the free index if its slot is not cyclically in ]index, next]
+            if (next > index ? slot <= index || slot > next : slot <= index && slot > next) {
+                entries[index] = entry;
+                entries[next] = null;
+                index = next;
+            }
+        }
+    }
+
+    private void resize() {
+        final Entry[] oldEntries = entries;
+        entries = new Entry[oldEntries.length << 1];
+        shift--;
+        final int mask = entries.length - 1;
+        for (final Entry entry : oldEntries) {
+            if (entry == null) continue;
+            int index = slot(entry.objectID);
+            while (entries[index] != null) {
+                index = index + 1 & mask;
+            }
+            entries[index] = entry;
+        }
+    }
+
+    private static final class Entry extends WeakReference<PObject> {
+
+        private final int objectID;
+        private final int windowID;
+        private final int frameID;
+
+        Entry(final PObject object, final ReferenceQueue<PObject> queue, final int objectID, final int windowID,
+                final int frameID) {
+            super(object, queue);
+            this.objectID = objectID;
+            this.windowID = windowID;
+            this.frameID = frameID;
+        }
+
+    }
+
+}
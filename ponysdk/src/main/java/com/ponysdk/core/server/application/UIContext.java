@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -46,8 +47,10 @@ import org.slf4j.LoggerFactory;
 
 import com.ponysdk.core.model.ClientToServerModel;
 import com.ponysdk.core.model.HandlerModel;
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.server.AlreadyDestroyedApplication;
+import com.ponysdk.core.server.concurrent.UIContextMailbox;
 import com.ponysdk.core.server.servlet.CommunicationSanityChecker;
 import com.ponysdk.core.server.stm.Txn;
 import com.ponysdk.core.server.stm.TxnContext;
@@ -90,7 +93,7 @@ public class UIContext {
     private final Map<String, Object> attributes = new HashMap<>();
 
     private int objectCounter = 1;
-    private final PObjectWeakHashMap pObjectWeakReferences = new PObjectWeakHashMap();
+    private final PObjectRegistry pObjectRegistry = new PObjectRegistry();
 
     private int streamRequestCounter = 0;
     private final Map<Integer, StreamHandler> streamListenerByID = new HashMap<>();
@@ -102,6 +105,7 @@ public class UIContext {
     private final PCookies cookies = new PCookies();
 
     private final CommunicationSanityChecker communicationSanityChecker;
+    private final UIContextMailbox mailbox;
     private final List<ContextDestroyListener> destroyListeners = new ArrayList<>();
     private final TxnContext context;
     private final Set<DataListener> listeners = Collections.newSetFromMap(new ConcurrentHashMap<>());
@@ -116,6 +120,10 @@ public class UIContext {
         this.application = context.getApplication();
         this.ID = uiContextCount.incrementAndGet();
         this.context = context;
+        final ExecutionMode executionMode = application != null ? application.getOptions().getExecutionMode() : ExecutionMode.LOCK;
+        if (ExecutionMode.LOCK != executionMode) this.mailbox = new UIContextMailbox(this,
+            application.getOptions().getMailboxBatchSize(), ExecutionMode.VIRTUAL_THREAD == executionMode);
+        else this.mailbox = null;
 
         this.communicationSanityChecker = new CommunicationSanityChecker(this);
         this.communicationSanityChecker.start();
@@ -186,25 +194,81 @@ public class UIContext {
         listeners.remove(listener);
     }
 
+    /**
+     * Runs the runnable in a transaction of this UIContext. With {@link ExecutionMode#MAILBOX}, the
+     * runnable is queued and this method returns before it is run, unless it is called from a task
+     * of this UIContext.
+     */
     public void execute(final Runnable runnable) {
         if (log.isDebugEnabled()) log.debug("Pushing to #" + this);
-        if (UIContext.get() != this) {
-            begin();
-            try {
-                final Txn txn = Txn.get();
-                txn.begin(context);
+        if (UIContext.get() == this) {
+            runnable.run();
+        } else if (mailbox != null) {
+            mailbox.submit(runnable);
+        } else {
+            executeWithLock(runnable);
+        }
+    }
+
+    /**
+     * Queues the runnable in the mailbox of this UIContext, see {@link ExecutionMode#MAILBOX}. Unlike
+     * {@link #execute(Runnable)}, it is never run inline : when called from a task of this
+     * UIContext, it is run after the task has returned.
+     *
+     * @throws IllegalStateException
+     *             if the tasks of this UIContext are not queued in a mailbox
+     */
+    public void enqueue(final Runnable runnable) {
+        if (mailbox == null) throw new IllegalStateException("UIContext #" + ID + " doesn't use a mailbox");
+        mailbox.submit(runnable);
+    }
+
+    /**
+     * Runs the runnable in a transaction of this UIContext and waits for its completion, whatever
+     * the {@link ExecutionMode}
+     */
+    public void executeAndWait(final Runnable runnable) {
+        if (mailbox != null && UIContext.get() != this) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            mailbox.submit(() -> {
                 try {
                     runnable.run();
-                    txn.commit();
-                } catch (final Throwable e) {
-                    log.error("Cannot process client instruction", e);
-                    txn.rollback();
+                } finally {
+                    latch.countDown();
                 }
-            } finally {
-                end();
+            });
+            try {
+                latch.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting for a task of #" + this, e);
             }
         } else {
-            runnable.run();
+            execute(runnable);
+        }
+    }
+
+    /**
+     * @return true if the tasks are queued in a mailbox, see {@link ExecutionMode#MAILBOX}
+     */
+    public boolean isMailboxExecution() {
+        return mailbox != null;
+    }
+
+    private void executeWithLock(final Runnable runnable) {
+        begin();
+        try {
+            final Txn txn = Txn.get();
+            txn.begin(context);
+            try {
+                runnable.run();
+                txn.commit();
+            } catch (final Throwable e) {
+                log.error("Cannot process client instruction", e);
+                txn.rollback();
+            }
+        } finally {
+            end();
         }
     }
 
@@ -263,7 +327,7 @@ public class UIContext {
                     if (jsonObject.containsKey(ClientToServerModel.PARENT_OBJECT_ID.toStringValue())) {
                         final int parentObjectID = jsonObject.getJsonNumber(ClientToServerModel.PARENT_OBJECT_ID.toStringValue())
                             .intValue();
-                        final PObject gcObject = pObjectWeakReferences.get(parentObjectID);
+                        final PObject gcObject = pObjectRegistry.get(parentObjectID);
                         log.warn(String.valueOf(gcObject));
                     }
 
@@ -296,11 +360,19 @@ public class UIContext {
     }
 
     public void registerObject(final PObject object) {
-        pObjectWeakReferences.put(object.getID(), object);
+        pObjectRegistry.put(object);
     }
 
     public <T> T getObject(final int objectID) {
-        return (T) pObjectWeakReferences.get(objectID);
+        return (T) pObjectRegistry.get(objectID);
+    }
+
+    /**
+     * Tells the terminal to release the objects garbage collected since the last transaction
+     */
+    public void expungeStaleObjects() {
+        pObjectRegistry.expungeStaleEntries(context.getWriter(),
+            context.getProtocolVersion().isSupporting(ProtocolVersion.BATCHED_GC));
     }
 
     public void stackStreamRequest(final StreamHandler streamListener) {
@@ -461,6 +533,16 @@ public class UIContext {
         application.unregisterUIContext(ID);
     }
 
+    /**
+     * A congested UIContext has a terminal that doesn't read fast enough, its updates are conflated
+     * until it catches up, so applications can also slow down or skip non-essential pushes
+     *
+     * @return true if the UIContext is congested
+     */
+    public boolean isCongested() {
+        return context.isCongested();
+    }
+
     public void sendHeartBeat() {
         begin();
         try {
@@ -483,6 +565,14 @@ public class UIContext {
         }
     }
 
+    /**
+     * Requests a round trip that is sent with the next frame of this UIContext, without taking its
+     * lock
+     */
+    public void requestRoundTrip() {
+        context.requestRoundTrip();
+    }
+
     public void addContextDestroyListener(final ContextDestroyListener listener) {
         destroyListeners.add(listener);
     }
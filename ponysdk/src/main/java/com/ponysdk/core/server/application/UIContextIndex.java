@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.application;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Index of the live UIContexts of all the applications, by ID.<br>
+ * The IDs are given in sequence, so the UIContexts are stored in chunks of consecutive IDs : a
+ * lookup is two array reads, without boxing the ID nor taking a lock. A chunk is dropped as soon as
+ * it holds no more UIContext, and created again if a UIContext is registered in its range later.<br>
+ * This class is thread-safe.
+ */
+public final class UIContextIndex {
+
+    private static final UIContextIndex INSTANCE = new UIContextIndex();
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Replaced by a bigger copy under the lock, the chunks are only set under the lock
+    private volatile AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(16);
+    private final AtomicInteger size = new AtomicInteger();
+
+    private UIContextIndex() {
+    }
+
+    public static UIContextIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the live UIContext with this ID, null if there is none
+     */
+    public UIContext getUIContext(final int id) {
+        if (id < 0) return null;
+        final AtomicReferenceArray<Chunk> chunks = this.chunks;
+        final int chunkIndex = id >>> CHUNK_BITS;
+        if (chunkIndex >= chunks.length()) return null;
+        final Chunk chunk = chunks.get(chunkIndex);
+        return chunk != null ? chunk.uiContexts.get(id & CHUNK_MASK) : null;
+    }
+
+    /**
+     * @return the number of live UIContexts, maintained on each registration
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Iterates over the live UIContexts without allocating, a UIContext registered or unregistered
+     * during the iteration may be missed
+     */
+    public void forEach(final Consumer<UIContext> action) {
+        final AtomicReferenceArray<Chunk> chunks = this.chunks;
+        for (int i = 0; i < chunks.length(); i++) {
+            final Chunk chunk = chunks.get(i);
+            if (chunk == null) continue;
+            for (int j = 0; j < CHUNK_SIZE; j++) {
+                final UIContext uiContext = chunk.uiContexts.get(j);
+                if (uiContext != null) action.accept(uiContext);
+            }
+        }
+    }
+
+    void register(final UIContext uiContext) {
+        final int id = uiContext.getID();
+        if (id < 0) throw new IllegalArgumentException("Invalid UIContext ID : " + id);
+        final int chunkIndex = id >>> CHUNK_BITS;
+        Chunk chunk = getChunk(chunkIndex);
+        // A chunk being dropped is replaced by a new one
+        while (!chunk.acquire()) {
+            removeChunk(chunkIndex, chunk);
+            chunk = getChunk(chunkIndex);
+        }
+        if (chunk.uiContexts.compareAndSet(id & CHUNK_MASK, null, uiContext)) size.incrementAndGet();
+        else release(chunkIndex, chunk);
+    }
+
+    void unregister(final UIContext uiContext) {
+        final int id = uiContext.getID();
+        final int chunkIndex = id >>> CHUNK_BITS;
+        final AtomicReferenceArray<Chunk> chunks = this.chunks;
+        if (id < 0 || chunkIndex >= chunks.length()) return;
+        final Chunk chunk = chunks.get(chunkIndex);
+        if (chunk == null || !chunk.uiContexts.compareAndSet(id & CHUNK_MASK, uiContext, null)) return;
+        size.decrementAndGet();
+        release(chunkIndex, chunk);
+    }
+
+    private void release(final int chunkIndex, final Chunk chunk) {
+        if (chunk.release()) removeChunk(chunkIndex, chunk);
+    }
+
+    private Chunk getChunk(final int chunkIndex) {
+        final AtomicReferenceArray<Chunk> chunks = this.chunks;
+        if (chunkIndex < chunks.length()) {
+            final Chunk chunk = chunks.get(chunkIndex);
+            if (chunk != null) return chunk;
+        }
+        return createChunk(chunkIndex);
+    }
+
+    private synchronized Chunk createChunk(final int chunkIndex) {
+        AtomicReferenceArray<Chunk> chunks = this.chunks;
+        if (chunkIndex >= chunks.length()) {
+            final AtomicReferenceArray<Chunk> newChunks = new AtomicReferenceArray<>(
+                Math.max(chunks.length() << 1, chunkIndex + 1));
+            for (int i = 0; i < chunks.length(); i++) {
+                newChunks.set(i, chunks.get(i));
+            }
+            this.chunks = chunks = newChunks;
+        }
+        Chunk chunk = chunks.get(chunkIndex);
+        if (chunk == null || chunk.isClosed()) {
+            chunk = new Chunk();
+            chunks.set(chunkIndex, chunk);
+        }
+        return chunk;
+    }
+
+    private synchronized void removeChunk(final int chunkIndex, final Chunk chunk) {
+        chunks.compareAndSet(chunkIndex, chunk, null);
+    }
+
+    private static final class Chunk {
+
+        private static final int CLOSED = -1;
+
+        private final AtomicReferenceArray<UIContext> uiContexts = new AtomicReferenceArray<>(CHUNK_SIZE);
+        // Number of UIContexts held, or being registered, CLOSED once the chunk is dropped
+        private final AtomicInteger live = new AtomicInteger();
+
+        /**
+         * @return false if the chunk is closed, nothing can be registered in it anymore
+         */
+        private boolean acquire() {
+            int count;
+            do {
+                count = live.get();
+                if (count == CLOSED) return false;
+            } while (!live.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * @return true if the chunk holds no more UIContext and has been closed by this call
+         */
+        private boolean release() {
+            return live.decrementAndGet() == 0 && live.compareAndSet(0, CLOSED);
+        }
+
+        private boolean isClosed() {
+            return live.get() == CLOSED;
+        }
+
+    }
+
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
 
@@ -45,6 +46,9 @@ import java.util.concurrent.locks.LockSupport;
  * synchronization between writers in a multi-threaded environment.<br>
  * The buffer usage can be observed by any thread, in order to avoid taking an external lock and
  * send a non-important message if a usage threshold has been reached.<br>
+ * The underlying buffer can be taken from a {@link DirectBufferPool}. In that case, it starts small
+ * and is replaced by a bigger one when the writer had to wait for the flushing logic and the buffer
+ * is empty again, up to a maximum size. It is given back to the pool when the buffer is closed.<br>
  */
 public abstract class AutoFlushedBuffer implements Closeable {
 
@@ -66,13 +70,20 @@ public abstract class AutoFlushedBuffer implements Closeable {
 
     // the ringbuffer that holds data
     // invariant : the range [position, limit[ is always available for write, it cannot contains pending data
-    private final ByteBuffer writeBuffer;
+    // only replaced by the producer thread when there is no pending flush
+    private ByteBuffer writeBuffer;
 
-    private final int bufferSize;
+    private int bufferSize;
+    private final int maxBufferSize;
     private final int maxChunkSize;
-    private final ByteBuffer flushBuffer; // read-only view of write buffer used by the flushing logic. Invariant: flushBuffer.remaining() <= maxChunkSize
+    private ByteBuffer flushBuffer; // read-only view of write buffer used by the flushing logic. Invariant: flushBuffer.remaining() <= maxChunkSize
 
-    private final long freeSpaceThreshold;
+    private final DirectBufferPool pool; // null if the buffer is not pooled
+    private final AtomicBoolean released = new AtomicBoolean();
+    private boolean growthRequested; // producer thread owned
+
+    private final float urgentMessageReservedRatio;
+    private long freeSpaceThreshold;
     private final long timeoutNanos; //0 means immediate failure if buffer is full, use Long.MAX_VALUE to implement infinite wait.
 
     // producer / consumer synchronization point to initiate new flush and stop flushing
@@ -129,23 +140,66 @@ public abstract class AutoFlushedBuffer implements Closeable {
      */
     protected AutoFlushedBuffer(final int bufferSize, final boolean useDirectBuffer, final int maxChunkSize,
             final float urgentMessageReservedRatio, final long timeoutMillis) {
-        if ((bufferSize & bufferSize - 1) != 0) {
-            throw new IllegalArgumentException("bufferSize must be a power of 2");
-        }
-        if (bufferSize < 32) {
-            throw new IllegalArgumentException("bufferSize must be at least 32");
+        this(useDirectBuffer ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize), bufferSize, null,
+            maxChunkSize, urgentMessageReservedRatio, timeoutMillis);
+    }
+
+    /**
+     * @param initialBufferSize
+     *            the size of the first buffer taken from the pool. Must be a power of 2 and greater
+     *            than 32
+     * @param maxBufferSize
+     *            the size up to which the buffer can grow. Must be a power of 2 and greater than
+     *            {@code initialBufferSize}
+     * @param pool
+     *            the pool providing the underlying buffers
+     * @param maxChunkSize
+     *            the maximum size of pending data before triggering a flush automatically, must be
+     *            between 8 and {@code initialBufferSize / 4}
+     * @param urgentMessageReservedRatio
+     *            used by {@link AutoFlushedBuffer#shouldOnlyWriteUrgentMessages()
+     *            shouldOnlyWriteUrgentMessages}.
+     * @param timeoutMillis
+     *            the timeout period in millisecond. If write to the buffer are blocked for longer
+     *            than this, it will be automatically closed
+     */
+    protected AutoFlushedBuffer(final int initialBufferSize, final int maxBufferSize, final DirectBufferPool pool,
+            final int maxChunkSize, final float urgentMessageReservedRatio, final long timeoutMillis) {
+        this(pool.acquire(checkBufferSize(initialBufferSize)), checkBufferSize(maxBufferSize), pool, maxChunkSize,
+            urgentMessageReservedRatio, timeoutMillis);
+    }
+
+    private AutoFlushedBuffer(final ByteBuffer buffer, final int maxBufferSize, final DirectBufferPool pool,
+            final int maxChunkSize, final float urgentMessageReservedRatio, final long timeoutMillis) {
+        final int bufferSize = buffer.capacity();
+        checkBufferSize(bufferSize);
+        if (maxBufferSize < bufferSize) {
+            throw new IllegalArgumentException("maxBufferSize must be greater than bufferSize");
         }
         if (maxChunkSize < 8 || maxChunkSize > bufferSize / 4) {
             throw new IllegalArgumentException("maxChunkSize must be between 8 and bufferSize / 4");
         }
         this.bufferSize = bufferSize;
+        this.maxBufferSize = maxBufferSize;
         this.maxChunkSize = maxChunkSize;
-        writeBuffer = useDirectBuffer ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        this.pool = pool;
+        writeBuffer = buffer;
         flushBuffer = writeBuffer.asReadOnlyBuffer();
+        this.urgentMessageReservedRatio = urgentMessageReservedRatio;
         freeSpaceThreshold = (long) (urgentMessageReservedRatio * bufferSize);
         timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
     }
 
+    private static int checkBufferSize(final int bufferSize) {
+        if ((bufferSize & bufferSize - 1) != 0) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        if (bufferSize < 32) {
+            throw new IllegalArgumentException("bufferSize must be at least 32");
+        }
+        return bufferSize;
+    }
+
     /**
      * Writes a {@code byte} in the buffer. This method may block up to the configured timeout
      * period if the buffer is already full
@@ -286,6 +340,46 @@ public abstract class AutoFlushedBuffer implements Closeable {
         return this;
     }
 
+    /**
+     * Writes an {@code int} in the buffer as an unsigned LEB128 varint : 7 bits per byte, least
+     * significant group first, the high bit set on every byte but the last one. Values lower than
+     * 128 only use one byte, negative values always use five bytes. This method may block up to the
+     * configured timeout period if the buffer is already full
+     *
+     * @param i
+     *            the int to write
+     * @return this buffer
+     * @throws InterruptedIOException
+     *             if the current thread is interrupted
+     * @throws IOException
+     *             if a timeout occurs or this buffer is already closed or the underlying flushing
+     *             mechanism reported an issue
+     */
+    public final AutoFlushedBuffer putVarInt(final int i) throws IOException {
+        final int length = varIntLength(i);
+        ensureCapacity(length);
+        int value = i;
+        while ((value & ~0x7F) != 0) {
+            writeBuffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        writeBuffer.put((byte) value);
+        notifyWrite(length);
+        return this;
+    }
+
+    /**
+     * @return the number of bytes written by {@link AutoFlushedBuffer#putVarInt(int) putVarInt} for
+     *         this value
+     */
+    public static int varIntLength(final int i) {
+        if ((i & ~0x7F) == 0) return 1;
+        else if ((i & ~0x3FFF) == 0) return 2;
+        else if ((i & ~0x1FFFFF) == 0) return 3;
+        else if ((i & ~0xFFFFFFF) == 0) return 4;
+        else return 5;
+    }
+
     /**
      * Writes a {@code byte} array in the buffer. This method may block up to the configured timeout
      * period if the buffer is already full.
@@ -342,6 +436,136 @@ public abstract class AutoFlushedBuffer implements Closeable {
         return this;
     }
 
+    /**
+     * Writes the remaining bytes of a {@link ByteBuffer} in the buffer, the position of the source
+     * buffer is moved to its limit. This method may block up to the configured timeout period if the
+     * buffer is already full.
+     *
+     * @param src
+     *            the buffer to write, a read-only view can be given to share it between several
+     *            writers
+     * @return this buffer
+     * @throws InterruptedIOException
+     *             if the current thread is interrupted
+     * @throws IOException
+     *             if a timeout occurs or this buffer is already closed or the underlying flushing
+     *             mechanism reported an issue
+     */
+    public final AutoFlushedBuffer put(final ByteBuffer src) throws IOException {
+        final int limit = src.limit();
+        while (src.hasRemaining()) {
+            ensureCapacity(src.remaining());
+            final int chunkLength = Math.min(src.remaining(), writeBuffer.remaining());
+            src.limit(src.position() + chunkLength);
+            writeBuffer.put(src);
+            src.limit(limit);
+            notifyWrite(chunkLength);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the UTF-8 encoding of a {@code String} in the buffer, without any intermediate
+     * allocation. The length is not written, use {@link AutoFlushedBuffer#utf8Length(String)
+     * utf8Length} to prefix it if needed. Unpaired surrogates are replaced by {@code '?'} like
+     * {@link String#getBytes(java.nio.charset.Charset) String.getBytes} does. This method may block
+     * up to the configured timeout period if the buffer is already full.
+     *
+     * @param s
+     *            the string to write
+     * @return this buffer
+     * @throws InterruptedIOException
+     *             if the current thread is interrupted
+     * @throws IOException
+     *             if a timeout occurs or this buffer is already closed or the underlying flushing
+     *             mechanism reported an issue
+     */
+    public final AutoFlushedBuffer putString(final String s) throws IOException {
+        final int length = s.length();
+        int bytesLeft = utf8Length(s);
+        int i = 0;
+        while (i < length) {
+            ensureCapacity(bytesLeft);
+            // ensureCapacity() guarantees at least min(bytesLeft, maxChunkSize) bytes, so a whole code point always fits
+            int available = writeBuffer.remaining();
+            int written = 0;
+            while (i < length) {
+                final char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (available < 1) break;
+                    writeBuffer.put((byte) c);
+                    available--;
+                    written++;
+                } else if (c < 0x800) {
+                    if (available < 2) break;
+                    writeBuffer.put((byte) (0xC0 | c >> 6));
+                    writeBuffer.put((byte) (0x80 | c & 0x3F));
+                    available -= 2;
+                    written += 2;
+                } else if (Character.isSurrogate(c)) {
+                    final int codePoint = Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))
+                            ? Character.toCodePoint(c, s.charAt(i + 1)) : -1;
+                    if (codePoint == -1) {
+                        if (available < 1) break;
+                        writeBuffer.put((byte) '?');
+                        available--;
+                        written++;
+                    } else {
+                        if (available < 4) break;
+                        writeBuffer.put((byte) (0xF0 | codePoint >> 18));
+                        writeBuffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                        writeBuffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                        writeBuffer.put((byte) (0x80 | codePoint & 0x3F));
+                        available -= 4;
+                        written += 4;
+                        i++;
+                    }
+                } else {
+                    if (available < 3) break;
+                    writeBuffer.put((byte) (0xE0 | c >> 12));
+                    writeBuffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                    writeBuffer.put((byte) (0x80 | c & 0x3F));
+                    available -= 3;
+                    written += 3;
+                }
+                i++;
+            }
+            bytesLeft -= written;
+            notifyWrite(written);
+        }
+        return this;
+    }
+
+    /**
+     * Computes the number of bytes {@link AutoFlushedBuffer#putString(String) putString} will write
+     * for a {@code String}, without allocating anything
+     *
+     * @param s
+     *            the string to measure
+     * @return the length of the UTF-8 encoding of the string
+     */
+    public static int utf8Length(final String s) {
+        final int length = s.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    utf8Length++;
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        // 2 chars => 4 bytes
+                        utf8Length += 2;
+                        i++;
+                    }
+                } else {
+                    utf8Length += 2;
+                }
+            }
+        }
+        return utf8Length;
+    }
+
     /**
      * Indicate if the buffer usage has reach the configured threshold. The purpose is to avoid
      * filling the buffer with messages than can be throttled and deliver
@@ -359,7 +583,18 @@ public abstract class AutoFlushedBuffer implements Closeable {
 
         //if there is an exception that is still not notified to the producer, we want it to try to write ASAP so we can notify it
         return asyncException == null
-                && (currentFlushIndex == 0 || currentFlushIndex - consumerIndex + freeSpaceThreshold > bufferSize);
+                && currentFlushIndex != 0 && currentFlushIndex - consumerIndex + freeSpaceThreshold > bufferSize;
+    }
+
+    /**
+     * Size of the data written since the last flush request. This method should be called by the
+     * writer thread.
+     *
+     * @return the number of bytes that are not flushed nor being flushed
+     */
+    public final long getUnflushedSize() {
+        final long currentFlushIndex = flushIndex.get();
+        return producerIndex - (currentFlushIndex != 0 ? currentFlushIndex : consumerIndex);
     }
 
     /**
@@ -387,9 +622,15 @@ public abstract class AutoFlushedBuffer implements Closeable {
             closed = true;
             LockSupport.unpark(waiterThread);
             closeFlusher();
+            // otherwise the flushing logic still reads the buffer, it will be released on completion
+            if (flushIndex.get() == 0) releaseBuffer();
         }
     }
 
+    private void releaseBuffer() {
+        if (pool != null && released.compareAndSet(false, true)) pool.release(writeBuffer);
+    }
+
     /**
      * Tells whether or not this buffer is closed.
      *
@@ -436,6 +677,8 @@ public abstract class AutoFlushedBuffer implements Closeable {
             currentFlushIndex = flushIndex.get();
             configureFlushBuffer(newConsumerIndex, currentFlushIndex);
             doFlush(flushBuffer);
+        } else if (closed) {
+            releaseBuffer();
         }
     }
 
@@ -448,7 +691,10 @@ public abstract class AutoFlushedBuffer implements Closeable {
      */
     protected final void onFlushFailure(final Exception ex) {
         asyncException = ex == null ? new IOException() : ex;
+        // The flushing logic doesn't read the buffer anymore, close() can release it
+        flushIndex.set(0);
         LockSupport.unpark(waiterThread);
+        if (closed) releaseBuffer();
     }
 
     private void checkLiveness() throws IOException {
@@ -469,6 +715,8 @@ public abstract class AutoFlushedBuffer implements Closeable {
         }
         checkLiveness();
 
+        if (growthRequested) tryGrow();
+
         final int minLength = Math.min(length, maxChunkSize);
         if (writeBuffer.remaining() < minLength) {
             //update writeBuffer
@@ -477,6 +725,23 @@ public abstract class AutoFlushedBuffer implements Closeable {
         }
     }
 
+    // replace the buffer by a bigger one if there is no pending data, otherwise the flushing logic could still read it
+    private void tryGrow() {
+        if (flushIndex.get() != 0 || consumerIndex != producerIndex) return;
+
+        growthRequested = false;
+        final ByteBuffer oldBuffer = writeBuffer;
+        writeBuffer = pool.acquire(bufferSize << 1);
+        flushBuffer = writeBuffer.asReadOnlyBuffer();
+        bufferSize = writeBuffer.capacity();
+        freeSpaceThreshold = (long) (urgentMessageReservedRatio * bufferSize);
+        producerIndex = 0;
+        consumerIndexCache = 0;
+        consumerIndex = 0;
+        paddingIndex = 0;
+        pool.release(oldBuffer);
+    }
+
     private void doEnsureCapacity(final int minLength) throws IOException {
         //auto-flush if we reach end of buffer
         if (writeBuffer.position() + minLength > writeBuffer.capacity()) {
@@ -507,6 +772,8 @@ public abstract class AutoFlushedBuffer implements Closeable {
             waiterThread = Thread.currentThread();
             try {
                 while ((consumerIndexCache = consumerIndex) < minConsumerIndex) {
+                    // a bigger buffer would have avoided the wait
+                    if (pool != null && bufferSize < maxBufferSize) growthRequested = true;
                     checkLiveness();
                     final long remainingNanos = initialNanos + timeoutNanos - System.nanoTime();
                     if (remainingNanos <= 0) {
@@ -586,6 +853,12 @@ public abstract class AutoFlushedBuffer implements Closeable {
             configureFlushBuffer(consumerIndexCache, producerIndex);
             final long nextFlushIndex = nextFlushIndex(consumerIndexCache);
             flushIndex.set(nextFlushIndex);
+            if (closed) {
+                //closed concurrently, the buffer may already be released
+                flushIndex.set(0);
+                releaseBuffer();
+                return;
+            }
             doFlush(flushBuffer);
         }
         updateWriteBufferLimit();
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.server.concurrent;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of direct buffers shared by all the {@link AutoFlushedBuffer}, with a size class per
+ * power of 2.<br>
+ * Direct memory is only released by the garbage collector, so the released buffers are kept to be
+ * reused instead, and the total allocated direct memory is capped. When the cap is reached, heap
+ * buffers are returned instead.<br>
+ * This class is thread-safe.
+ */
+public class DirectBufferPool {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectBufferPool.class);
+
+    private static final int MIN_SIZE_CLASS = 5; // 32 bytes
+    private static final int MAX_SIZE_CLASS = 30; // 1 GB
+
+    private static final DirectBufferPool INSTANCE = new DirectBufferPool(
+        Long.parseLong(System.getProperty("direct.buffer.pool.max.size", String.valueOf(1L << 30))));
+
+    private final FreeBuffers[] freeBuffers;
+
+    private volatile long maxSize;
+
+    private final AtomicLong allocatedSize = new AtomicLong();
+    private final AtomicLong usedSize = new AtomicLong();
+    private final AtomicLong heapAllocationCount = new AtomicLong();
+
+    /**
+     * @param maxSize
+     *            the maximum amount of direct memory allocated by the pool, in bytes
+     */
+    public DirectBufferPool(final long maxSize) {
+        this.maxSize = maxSize;
+        this.freeBuffers = new FreeBuffers[MAX_SIZE_CLASS + 1];
+        for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++) {
+            freeBuffers[i] = new FreeBuffers();
+        }
+    }
+
+    /**
+     * @return the pool shared by the whole JVM, its maximum size is set by the
+     *         {@code direct.buffer.pool.max.size} system property (1 GB by default)
+     */
+    public static DirectBufferPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets a cleared buffer from the pool, or allocates it
+     *
+     * @param size
+     *            the capacity of the buffer, must be a power of 2 between 32 bytes and 1 GB
+     * @return a direct buffer, or a heap buffer if the maximum size of the pool is reached
+     */
+    public ByteBuffer acquire(final int size) {
+        final Queue<ByteBuffer> buffers = freeBuffers[sizeClass(size)];
+
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            long allocated;
+            do {
+                allocated = allocatedSize.get();
+                if (allocated + size > maxSize) {
+                    if (heapAllocationCount.getAndIncrement() == 0)
+                        log.warn("Maximum size of the direct buffer pool reached ({} bytes), using heap buffers", maxSize);
+                    return ByteBuffer.allocate(size);
+                }
+            } while (!allocatedSize.compareAndSet(allocated, allocated + size));
+            buffer = ByteBuffer.allocateDirect(size);
+        } else {
+            buffer.clear();
+        }
+
+        usedSize.addAndGet(size);
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool, it must not be used anymore. Heap buffers are ignored.
+     */
+    public void release(final ByteBuffer buffer) {
+        if (!buffer.isDirect()) return;
+        final int size = buffer.capacity();
+        usedSize.addAndGet(-size);
+        freeBuffers[sizeClass(size)].offer(buffer);
+    }
+
+    private static int sizeClass(final int size) {
+        final int sizeClass = Integer.numberOfTrailingZeros(size);
+        if ((size & size - 1) != 0 || sizeClass < MIN_SIZE_CLASS || sizeClass > MAX_SIZE_CLASS)
+            throw new IllegalArgumentException("Buffer size must be a power of 2 between 32 bytes and 1 GB : " + size);
+        return sizeClass;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Changes the maximum amount of direct memory allocated by the pool, the buffers already
+     * allocated are kept
+     */
+    public void setMaxSize(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the direct memory allocated by the pool, in bytes
+     */
+    public long getAllocatedSize() {
+        return allocatedSize.get();
+    }
+
+    /**
+     * @return the direct memory currently acquired, in bytes
+     */
+    public long getUsedSize() {
+        return usedSize.get();
+    }
+
+    /**
+     * @return the direct memory available in the pool without allocating, in bytes
+     */
+    public long getFreeSize() {
+        return allocatedSize.get() - usedSize.get();
+    }
+
+    /**
+     * @return the ratio of the allocated direct memory currently acquired
+     */
+    public double getOccupancy() {
+        final long allocated = allocatedSize.get();
+        return allocated > 0 ? (double) usedSize.get() / allocated : 0;
+    }
+
+    /**
+     * @return the number of heap buffers returned because the maximum size was reached
+     */
+    public long getHeapAllocationCount() {
+        return heapAllocationCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DirectBufferPool [allocated=" + allocatedSize.get() + ", used=" + usedSize.get() + ", max=" + maxSize
+                + ", heapAllocations=" + heapAllocationCount.get() + "]";
+    }
+
+    /**
+     * The released buffers of a size class, a named type so an array of them can be created
+     */
+    private static final class FreeBuffers extends ConcurrentLinkedQueue<ByteBuffer> {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+}
@@ -24,14 +24,19 @@
 package com.ponysdk.core.server.concurrent;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
@@ -40,34 +45,59 @@ import org.slf4j.LoggerFactory;
 import com.ponysdk.core.server.application.UIContext;
 import com.ponysdk.core.server.stm.Txn;
 
+/**
+ * Schedules tasks in the transaction of a {@link UIContext}.
+ * <p>
+ * The delayed tasks are stored in a hierarchical timing wheel driven by a single thread : schedule
+ * and cancel are O(1) whatever the number of tasks. The tasks of a UIContext expiring on the same
+ * tick are run together in a single transaction, and all the tasks of a UIContext are dropped at
+ * once when it is destroyed.
+ */
 public class PScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(PScheduler.class);
 
+    private static final long TICK_DURATION = TimeUnit.MILLISECONDS
+        .toNanos(Long.parseLong(System.getProperty("pscheduler.tick.duration", "10")));
+    private static final int MAX_THREAD_WORKER = Integer
+        .parseInt(System.getProperty("pscheduler.thread.count", String.valueOf(Runtime.getRuntime().availableProcessors())));
+
     private static final PScheduler INSTANCE;
 
     static {
-        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
-            new ThreadFactory() {
+        final ExecutorService workers = Executors.newFixedThreadPool(MAX_THREAD_WORKER, new ThreadFactory() {
 
-                private int i = 0;
+            private int i = 0;
 
-                @Override
-                public Thread newThread(final Runnable r) {
-                    final Thread t = new Thread(r);
-                    t.setName(PScheduler.class.getName() + "-" + i++);
-                    t.setDaemon(true);
-                    return t;
-                }
-            });
-        INSTANCE = new PScheduler(executor);
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r);
+                t.setName(PScheduler.class.getName() + "-" + i++);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        INSTANCE = new PScheduler(workers);
     }
 
-    private final ScheduledThreadPoolExecutor executor;
-    private final Map<UIContext, Set<UIRunnable>> runnablesByUIContexts = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final Map<UIContext, ContextTasks> tasksByUIContexts = new ConcurrentHashMap<>();
+
+    // Only accessed by the wheel thread, the other threads post their changes in the queues
+    private final TimingWheel wheel = new TimingWheel();
+    private final Queue<UIRunnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<UIRunnable> cancelledTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<ContextTasks> destroyedContexts = new ConcurrentLinkedQueue<>();
 
-    private PScheduler(final ScheduledThreadPoolExecutor executor) {
-        this.executor = executor;
+    private final long origin = System.nanoTime();
+    private final Thread wheelThread;
+    private volatile boolean sleeping;
+
+    private PScheduler(final ExecutorService workers) {
+        this.workers = workers;
+        wheelThread = new Thread(this::runWheel, PScheduler.class.getName() + "-wheel");
+        wheelThread.setDaemon(true);
+        wheelThread.start();
     }
 
     public static UIRunnable schedule(final Runnable runnable) {
@@ -113,28 +143,39 @@ public class PScheduler {
     }
 
     private UIRunnable schedule0(final UIContext context, final Runnable runnable, final Duration duration) {
-        final UIRunnable uiRunnable = new UIRunnable(context, this, runnable, false);
-        uiRunnable.setFuture(executor.schedule(uiRunnable, duration.toMillis(), TimeUnit.MILLISECONDS));
-        registerTask(uiRunnable);
+        final UIRunnable uiRunnable = new UIRunnable(context, this, runnable, 0, false);
+        final long delay = duration.toNanos();
+        if (registerTask(uiRunnable)) {
+            if (delay > 0) {
+                uiRunnable.deadline = now() + delay;
+                submit(uiRunnable);
+            } else {
+                // Nothing to wait for, the task doesn't go through the wheel
+                dispatch(uiRunnable.contextTasks, Collections.singletonList(uiRunnable));
+            }
+        }
         return uiRunnable;
     }
 
     private UIRunnable scheduleAtFixedRate0(final UIContext context, final Runnable runnable, final Duration delay,
                                             final Duration period) {
-        final UIRunnable uiRunnable = new UIRunnable(context, this, runnable, true);
-        uiRunnable.setFuture(executor.scheduleAtFixedRate(uiRunnable, delay.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS));
-        registerTask(uiRunnable);
-        return uiRunnable;
+        return schedulePeriodic(context, runnable, delay.toNanos(), period.toNanos(), true);
     }
 
     private UIRunnable scheduleWithFixedDelay0(final UIContext context, final Runnable runnable, final long delayMillis,
                                                final long periodMillis) {
-        final UIRunnable uiRunnable = new UIRunnable(context, this, runnable, true);
-        final ScheduledFuture<?> future = executor.scheduleWithFixedDelay(uiRunnable, delayMillis, periodMillis,
-            TimeUnit.MILLISECONDS);
-        uiRunnable.setFuture(future);
-        registerTask(uiRunnable);
+        return schedulePeriodic(context, runnable, TimeUnit.MILLISECONDS.toNanos(delayMillis),
+            TimeUnit.MILLISECONDS.toNanos(periodMillis), false);
+    }
 
+    private UIRunnable schedulePeriodic(final UIContext context, final Runnable runnable, final long delay, final long period,
+                                        final boolean fixedRate) {
+        if (period <= 0) throw new IllegalArgumentException("The period must be positive : " + period + " ns");
+        final UIRunnable uiRunnable = new UIRunnable(context, this, runnable, period, fixedRate);
+        if (registerTask(uiRunnable)) {
+            uiRunnable.deadline = now() + Math.max(0, delay);
+            submit(uiRunnable);
+        }
         return uiRunnable;
     }
 
@@ -150,54 +191,283 @@ public class PScheduler {
         return new UIDelegator<>(callback, uiContext);
     }
 
-    private void purge(final UIRunnable uiRunnable) {
-        executor.purge();
-        final Set<UIRunnable> set = runnablesByUIContexts.get(uiRunnable.getUiContext());
-        if (set != null) set.remove(uiRunnable);
-    }
-
-    private void registerTask(final UIRunnable runnable) {
+    /**
+     * @return false if the UIContext is already destroyed, the task is then cancelled
+     */
+    private boolean registerTask(final UIRunnable runnable) {
         final UIContext uiContext = runnable.getUiContext();
-        uiContext.addContextDestroyListener(context -> {
-            final Set<UIRunnable> runnables = runnablesByUIContexts.remove(context);
-            if (runnables != null) runnables.forEach(UIRunnable::cancel);
+        if (!uiContext.isLiving()) {
+            runnable.cancelled = true;
+            return false;
+        }
+        // A single destroy listener by UIContext, whatever the number of tasks
+        final ContextTasks contextTasks = tasksByUIContexts.computeIfAbsent(uiContext, context -> {
+            final ContextTasks tasks = new ContextTasks(context);
+            context.addContextDestroyListener(c -> destroy(tasks));
+            return tasks;
         });
-        Set<UIRunnable> runnables = runnablesByUIContexts.get(uiContext);
-        if (runnables == null) {
-            runnables = Collections.newSetFromMap(new ConcurrentHashMap<>());
-            runnablesByUIContexts.put(uiContext, runnables);
+        runnable.contextTasks = contextTasks;
+        contextTasks.tasks.add(runnable);
+        return true;
+    }
+
+    private void destroy(final ContextTasks contextTasks) {
+        tasksByUIContexts.remove(contextTasks.uiContext, contextTasks);
+        // All the tasks are cancelled at once, the wheel unlinks them on its next tick
+        contextTasks.destroyed = true;
+        destroyedContexts.add(contextTasks);
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    private void submit(final UIRunnable uiRunnable) {
+        pendingTasks.add(uiRunnable);
+        if (sleeping) LockSupport.unpark(wheelThread);
+    }
+
+    private void runWheel() {
+        long tick = 0;
+        while (true) {
+            try {
+                if (wheel.isEmpty() && pendingTasks.isEmpty()) {
+                    // Nothing to expire, no need to tick until a task is scheduled
+                    sleeping = true;
+                    if (pendingTasks.isEmpty()) LockSupport.park(this);
+                    sleeping = false;
+                    tick = Math.max(tick, now() / TICK_DURATION);
+                }
+
+                final long sleepTime = tick * TICK_DURATION - now();
+                if (sleepTime > 0) {
+                    LockSupport.parkNanos(this, sleepTime);
+                    continue;
+                }
+
+                processTick(tick++);
+            } catch (final Throwable e) {
+                log.error("Cannot process the tick #" + tick + " of the scheduler", e);
+            }
+        }
+    }
+
+    private void processTick(final long tick) {
+        wheel.cascade(tick);
+
+        ContextTasks contextTasks;
+        while ((contextTasks = destroyedContexts.poll()) != null) {
+            contextTasks.tasks.forEach(wheel::remove);
+        }
+
+        UIRunnable uiRunnable;
+        while ((uiRunnable = cancelledTasks.poll()) != null) {
+            wheel.remove(uiRunnable);
+        }
+        while ((uiRunnable = pendingTasks.poll()) != null) {
+            if (!uiRunnable.isCancelled()) wheel.add(uiRunnable, expirationTick(uiRunnable.deadline), tick);
+        }
+
+        // Same-tick tasks of a UIContext are grouped in a single batch
+        final List<ContextTasks> dueContexts = new ArrayList<>();
+        for (uiRunnable = wheel.expire(tick); uiRunnable != null;) {
+            final UIRunnable next = uiRunnable.next;
+            uiRunnable.next = null;
+            final ContextTasks tasks = uiRunnable.contextTasks;
+            if (tasks.due == null) {
+                tasks.due = new ArrayList<>();
+                dueContexts.add(tasks);
+            }
+            tasks.due.add(uiRunnable);
+            uiRunnable = next;
+        }
+        for (final ContextTasks tasks : dueContexts) {
+            dispatch(tasks, tasks.due);
+            tasks.due = null;
+        }
+    }
+
+    private static long expirationTick(final long deadline) {
+        return (deadline + TICK_DURATION - 1) / TICK_DURATION;
+    }
+
+    private void dispatch(final ContextTasks contextTasks, final List<UIRunnable> batch) {
+        final UIContext uiContext = contextTasks.uiContext;
+        try {
+            // The mailbox doesn't block the caller, otherwise a worker waits for the UIContext lock.
+            // A task scheduled without delay from a task of the UIContext is never run in the caller's transaction
+            if (uiContext.isMailboxExecution()) uiContext.enqueue(() -> runBatch(contextTasks, batch));
+            else workers.execute(() -> uiContext.execute(() -> runBatch(contextTasks, batch)));
+        } catch (final Throwable e) {
+            log.error("Cannot dispatch the tasks of UIContext #" + uiContext.getID(), e);
+            batch.forEach(UIRunnable::cancel);
+        }
+    }
+
+    private void runBatch(final ContextTasks contextTasks, final List<UIRunnable> batch) {
+        if (!contextTasks.uiContext.isLiving()) {
+            // Destroyed before the registration of the destroy listener
+            destroy(contextTasks);
+            return;
+        }
+        for (final UIRunnable uiRunnable : batch) {
+            if (uiRunnable.isCancelled()) continue;
+            try {
+                uiRunnable.runnable.run();
+            } catch (final Throwable e) {
+                log.error("Cannot process commmand", e);
+                uiRunnable.cancel();
+                continue;
+            }
+            if (uiRunnable.period > 0) {
+                uiRunnable.deadline = uiRunnable.fixedRate ? uiRunnable.deadline + uiRunnable.period : now() + uiRunnable.period;
+                submit(uiRunnable);
+            } else {
+                contextTasks.tasks.remove(uiRunnable);
+            }
         }
-        runnables.add(runnable);
+    }
+
+    private static final class ContextTasks {
+
+        private final UIContext uiContext;
+        private final Set<UIRunnable> tasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private volatile boolean destroyed;
+        // Only accessed by the wheel thread, the tasks expiring on the current tick
+        private List<UIRunnable> due;
+
+        ContextTasks(final UIContext uiContext) {
+            this.uiContext = uiContext;
+        }
+
+    }
+
+    /**
+     * Hierarchical timing wheel : each level has 64 slots, a slot of a level covering the whole
+     * wheel of the level below. A task is stored in the level matching its remaining ticks, and
+     * moved down to a lower level when the wheel reaches its slot.<br>
+     * The slots are doubly linked lists, so adding and removing a task are O(1).
+     */
+    private static final class TimingWheel {
+
+        private static final int BITS = 6;
+        private static final int SLOTS = 1 << BITS;
+        private static final int MASK = SLOTS - 1;
+        private static final int LEVELS = 4;
+        private static final long MAX_TICKS = 1L << BITS * LEVELS;
+
+        private final UIRunnable[][] heads = new UIRunnable[LEVELS][SLOTS];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(final UIRunnable task, final long expirationTick, final long currentTick) {
+            task.expirationTick = Math.max(expirationTick, currentTick);
+            final long delta = task.expirationTick - currentTick;
+            // Beyond the last level, the task waits in the farthest slot and is cascaded again
+            final long slotTick = delta < MAX_TICKS ? task.expirationTick : currentTick + MAX_TICKS - 1;
+            int level = 0;
+            while (level < LEVELS - 1 && slotTick - currentTick >= 1L << BITS * (level + 1)) {
+                level++;
+            }
+            final int slot = (int) (slotTick >>> BITS * level) & MASK;
+
+            final UIRunnable head = heads[level][slot];
+            task.level = level;
+            task.slot = slot;
+            task.previous = null;
+            task.next = head;
+            if (head != null) head.previous = task;
+            heads[level][slot] = task;
+            size++;
+        }
+
+        void remove(final UIRunnable task) {
+            if (task.level == -1) return;
+            if (task.previous != null) task.previous.next = task.next;
+            else heads[task.level][task.slot] = task.next;
+            if (task.next != null) task.next.previous = task.previous;
+            task.previous = null;
+            task.next = null;
+            task.level = -1;
+            size--;
+        }
+
+        /**
+         * Moves down the tasks of the upper slots reached by the tick, from the highest level so
+         * that a task can go down several levels at once
+         */
+        void cascade(final long tick) {
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & (1L << BITS * level) - 1) != 0) continue;
+                final int slot = (int) (tick >>> BITS * level) & MASK;
+                UIRunnable task = heads[level][slot];
+                heads[level][slot] = null;
+                while (task != null) {
+                    final UIRunnable next = task.next;
+                    task.level = -1;
+                    size--;
+                    add(task, task.expirationTick, tick);
+                    task = next;
+                }
+            }
+        }
+
+        /**
+         * @return the tasks expiring on the tick, linked with {@link UIRunnable#next}
+         */
+        UIRunnable expire(final long tick) {
+            final int slot = (int) tick & MASK;
+            final UIRunnable first = heads[0][slot];
+            heads[0][slot] = null;
+            for (UIRunnable task = first; task != null; task = task.next) {
+                task.previous = null;
+                task.level = -1;
+                size--;
+            }
+            return first;
+        }
+
     }
 
     public static final class UIRunnable implements Runnable {
 
         private final Runnable runnable;
         private final UIContext uiContext;
-        private final boolean repeated;
         private final PScheduler scheduler;
-        private boolean cancelled;
-        private ScheduledFuture<?> future;
-
-        UIRunnable(final UIContext context, final PScheduler scheduler, final Runnable runnable, final boolean repeated) {
+        private final long period;
+        private final boolean fixedRate;
+        private volatile boolean cancelled;
+        private ContextTasks contextTasks;
+        // Nanoseconds since the origin of the scheduler
+        private volatile long deadline;
+
+        // Only accessed by the wheel thread
+        private long expirationTick;
+        private int level = -1;
+        private int slot;
+        private UIRunnable previous;
+        private UIRunnable next;
+
+        UIRunnable(final UIContext context, final PScheduler scheduler, final Runnable runnable, final long period,
+                final boolean fixedRate) {
             this.uiContext = context;
             this.runnable = runnable;
-            this.repeated = repeated;
             this.scheduler = scheduler;
+            this.period = period;
+            this.fixedRate = fixedRate;
         }
 
         @Override
         public void run() {
             try {
-                if (cancelled) return;
+                if (isCancelled()) return;
                 if (!execute()) cancel();
             } catch (final Throwable throwable) {
                 log.error("Error occurred", throwable);
                 cancel();
-            } finally {
-                if (!repeated) {
-                    scheduler.purge(this);
-                }
             }
         }
 
@@ -210,6 +480,19 @@ public class PScheduler {
         }
 
         public boolean execute() {
+            if (uiContext.isMailboxExecution()) {
+                // The calling thread doesn't wait for the UIContext, the failure is handled by the task
+                uiContext.execute(() -> {
+                    if (isCancelled()) return;
+                    try {
+                        runnable.run();
+                    } catch (final Throwable e) {
+                        log.error("Cannot process commmand", e);
+                        cancel();
+                    }
+                });
+                return true;
+            }
             try {
                 begin();
                 try {
@@ -234,13 +517,16 @@ public class PScheduler {
         }
 
         public void cancel() {
+            if (cancelled) return;
             this.cancelled = true;
-            this.future.cancel(false);
-            scheduler.purge(this);
+            if (contextTasks != null) {
+                contextTasks.tasks.remove(this);
+                scheduler.cancelledTasks.add(this);
+            }
         }
 
-        void setFuture(final ScheduledFuture<?> future) {
-            this.future = future;
+        boolean isCancelled() {
+            return cancelled || contextTasks != null && contextTasks.destroyed;
         }
 
         public UIContext getUiContext() {
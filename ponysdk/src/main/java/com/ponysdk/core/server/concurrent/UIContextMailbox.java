@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.concurrent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ponysdk.core.server.application.ExecutionMode;
+import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.stm.Txn;
+
+/**
+ * Task queue of a {@link UIContext} with the {@link ExecutionMode#MAILBOX} mode.<br>
+ * Any thread can submit a task without waiting, a shared pool of workers drains the mailbox, only
+ * one worker at a time for a mailbox. The tasks found by a worker are run with the lock of the
+ * UIContext in a single transaction, so they are committed and flushed together.<br>
+ * The workers are either a fixed pool of platform threads or, with
+ * {@link ExecutionMode#VIRTUAL_THREAD}, a new virtual thread for each drain : a task blocking on
+ * I/O then only parks its virtual thread.
+ */
+public class UIContextMailbox implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(UIContextMailbox.class);
+
+    private static final int MAX_THREAD_WORKER = Integer
+        .parseInt(System.getProperty("uicontext.mailbox.thread.count", String.valueOf(Runtime.getRuntime().availableProcessors())));
+    private static final ExecutorService platformWorkers = Executors.newFixedThreadPool(MAX_THREAD_WORKER, new ThreadFactory() {
+
+        private int i = 0;
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r);
+            t.setName(UIContextMailbox.class.getName() + "-" + i++);
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final UIContext uiContext;
+    private final int maxBatchSize;
+    private final Executor workers;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // Set by the thread that schedules a drain, cleared by the worker at the end of the drain
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param maxBatchSize
+     *            maximum number of tasks run in a transaction, the worker is released between two
+     *            batches so a busy UIContext doesn't starve the others
+     * @param virtualThreads
+     *            true to drain the mailbox on virtual threads, the shared pool of platform threads
+     *            is used if the runtime doesn't support them
+     */
+    public UIContextMailbox(final UIContext uiContext, final int maxBatchSize, final boolean virtualThreads) {
+        this.uiContext = uiContext;
+        this.maxBatchSize = maxBatchSize;
+        if (virtualThreads && !VirtualThreads.isSupported())
+            log.warn("Virtual threads are not supported by this runtime, UIContext #{} uses the platform workers", uiContext.getID());
+        this.workers = virtualThreads && VirtualThreads.isSupported() ? VirtualThreads.executor() : platformWorkers;
+    }
+
+    public void submit(final Runnable task) {
+        tasks.add(task);
+        if (scheduled.compareAndSet(false, true)) workers.execute(this);
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            drain();
+        } finally {
+            scheduled.set(false);
+            // A task can have been queued after the last poll but before the flag was cleared
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) workers.execute(this);
+        }
+    }
+
+    private void drain() {
+        uiContext.begin();
+        try {
+            final Txn txn = Txn.get();
+            txn.begin(uiContext.getContext());
+            try {
+                Runnable task;
+                int count = 0;
+                while (count++ < maxBatchSize && (task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (final Throwable e) {
+                        // The other tasks of the batch are still committed
+                        log.error("Cannot process task on UIContext #" + uiContext.getID(), e);
+                    }
+                }
+                txn.commit();
+            } catch (final Throwable e) {
+                log.error("Cannot commit the tasks of UIContext #" + uiContext.getID(), e);
+                txn.rollback();
+            }
+        } finally {
+            uiContext.end();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Access to the virtual threads of the JDK 21+ runtimes. The library is compiled for Java 8, so
+ * the API is looked up by reflection.
+ */
+public final class VirtualThreads {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final ExecutorService executor = newExecutor(VirtualThreads.class.getName() + "-");
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the runtime can create virtual threads
+     */
+    public static boolean isSupported() {
+        return executor != null;
+    }
+
+    /**
+     * @return a shared executor starting a new virtual thread for each task, null if the runtime
+     *         doesn't support the virtual threads
+     */
+    public static ExecutorService executor() {
+        return executor;
+    }
+
+    private static ExecutorService newExecutor(final String namePrefix) {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+            final Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (final ReflectiveOperationException e) {
+            if (log.isDebugEnabled()) log.debug("Virtual threads are not supported by this runtime", e);
+            return null;
+        }
+    }
+
+}
@@ -46,7 +46,7 @@ public class AjaxServlet extends HttpServlet {
             final Integer contextID = Integer.parseInt(req.getHeader(ClientToServerModel.UI_CONTEXT_ID.name()));
             final Integer objectID = Integer.parseInt(req.getHeader(ClientToServerModel.OBJECT_ID.name()));
             final UIContext uiContext = SessionManager.get().getUIcontext(contextID);
-            uiContext.execute(() -> {
+            uiContext.executeAndWait(() -> {
                 try {
                     final PObject pObject = uiContext.getObject(objectID);
                     pObject.handleAjaxRequest(req, resp);
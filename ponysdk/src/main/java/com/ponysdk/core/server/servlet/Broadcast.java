@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.JsonObject;
+
+import com.ponysdk.core.model.ProtocolVersion;
+import com.ponysdk.core.model.ServerToClientModel;
+import com.ponysdk.core.server.concurrent.DirectBufferPool;
+
+/**
+ * A block sent to the terminals of many UIContexts, see {@link Broadcaster}.<br>
+ * The block doesn't depend on the UIContext, so it is encoded once per protocol version and the
+ * same immutable segment is appended to the buffer of each terminal. The segments are taken from
+ * the {@link DirectBufferPool}, they are encoded in place and given back once the last delivery has
+ * released its reference.
+ */
+public final class Broadcast {
+
+    private static final ProtocolVersion[] PROTOCOL_VERSIONS = ProtocolVersion.values();
+
+    private static final int ENCODER_BUFFER_SIZE = 1 << 14;
+    private static final int ENCODER_CHUNK_SIZE = 1 << 12;
+
+    private final String channel;
+    private final JsonObject data;
+
+    private final ByteBuffer[] buffers = new ByteBuffer[PROTOCOL_VERSIONS.length];
+    private final ByteBuffer[] segments = new ByteBuffer[PROTOCOL_VERSIONS.length];
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    /**
+     * The broadcast is created with a reference held by the caller
+     */
+    Broadcast(final String channel, final JsonObject data) {
+        this.channel = channel;
+        this.data = data;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public JsonObject getData() {
+        return data;
+    }
+
+    void retain(final int count) {
+        references.addAndGet(count);
+    }
+
+    void release() {
+        final int remaining = references.decrementAndGet();
+        if (remaining == 0) releaseSegments();
+        else if (remaining < 0) throw new IllegalStateException("Broadcast released too many times");
+    }
+
+    /**
+     * @return a read-only view of the block encoded for the protocol version
+     */
+    synchronized ByteBuffer getSegment(final ProtocolVersion protocolVersion) {
+        final int index = protocolVersion.ordinal();
+        if (segments[index] == null) encode(protocolVersion);
+        return segments[index].duplicate();
+    }
+
+    private void encode(final ProtocolVersion protocolVersion) {
+        final SegmentEncoder encoder = new SegmentEncoder(protocolVersion);
+        encoder.encode(ServerToClientModel.BROADCAST_CHANNEL, channel);
+        encoder.encode(ServerToClientModel.NATIVE, data);
+        encoder.encode(ServerToClientModel.END, null);
+        encoder.flush();
+        encoder.close();
+
+        final ByteBuffer buffer = encoder.segment;
+        buffer.flip();
+        buffers[protocolVersion.ordinal()] = buffer;
+        segments[protocolVersion.ordinal()] = buffer.asReadOnlyBuffer();
+    }
+
+    private synchronized void releaseSegments() {
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] != null) DirectBufferPool.get().release(buffers[i]);
+            buffers[i] = null;
+            segments[i] = null;
+        }
+    }
+
+    /**
+     * Encodes like the pusher of a terminal using the protocol version, without the string
+     * dictionary of the terminal
+     */
+    private static final class SegmentEncoder extends WebSocketPusher {
+
+        // Taken from the pool and kept as the segment, replaced by a bigger one when it is full
+        private ByteBuffer segment = DirectBufferPool.get().acquire(ENCODER_CHUNK_SIZE);
+
+        SegmentEncoder(final ProtocolVersion protocolVersion) {
+            super(null, ENCODER_BUFFER_SIZE, ENCODER_BUFFER_SIZE, ENCODER_CHUNK_SIZE, Long.MAX_VALUE);
+            setProtocolVersion(protocolVersion);
+        }
+
+        @Override
+        protected void doFlush(final ByteBuffer bufferToFlush) {
+            if (segment.remaining() < bufferToFlush.remaining()) {
+                final int size = segment.position() + bufferToFlush.remaining();
+                final ByteBuffer bigger = DirectBufferPool.get().acquire(Integer.highestOneBit(size - 1) << 1);
+                segment.flip();
+                bigger.put(segment);
+                DirectBufferPool.get().release(segment);
+                segment = bigger;
+            }
+            segment.put(bufferToFlush);
+            onFlushCompletion();
+        }
+
+        @Override
+        protected void closeFlusher() {
+        }
+
+    }
+
+}
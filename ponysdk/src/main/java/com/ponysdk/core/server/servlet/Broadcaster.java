@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.json.JsonObject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.stm.TxnContext;
+
+/**
+ * Sends the same block to the terminals of many UIContexts, the block is encoded once and shared,
+ * see {@link Broadcast}. On the terminal, the data is given to the listeners registered on the
+ * channel with {@code PonySDK.addBroadcastListener}.
+ * <p>
+ * The deliveries are spread over a pool of single-thread workers by UIContext, so the broadcasts
+ * reach a UIContext in order, and a slow UIContext only delays the ones sharing its worker.
+ * A congested UIContext queues the broadcast until its buffer drains, see
+ * {@link TxnContext#writeBroadcast(Broadcast)}.
+ */
+public final class Broadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(Broadcaster.class);
+
+    private static final int MAX_THREAD_BROADCASTER = Integer
+        .parseInt(System.getProperty("broadcaster.thread.count", String.valueOf(Runtime.getRuntime().availableProcessors())));
+    private static final ExecutorService[] workers = new ExecutorService[MAX_THREAD_BROADCASTER];
+
+    static {
+        for (int i = 0; i < workers.length; i++) {
+            final String name = Broadcaster.class.getName() + "-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(r -> {
+                final Thread t = new Thread(r);
+                t.setName(name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private Broadcaster() {
+    }
+
+    /**
+     * Sends the data to the terminals of the UIContexts, this method returns before the
+     * deliveries
+     */
+    public static void broadcast(final Collection<UIContext> uiContexts, final String channel, final JsonObject data) {
+        final List<List<UIContext>> partitions = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        int count = 0;
+        for (final UIContext uiContext : uiContexts) {
+            partitions.get(uiContext.getID() % workers.length).add(uiContext);
+            count++;
+        }
+
+        final Broadcast broadcast = new Broadcast(channel, data);
+        broadcast.retain(count);
+        for (int i = 0; i < workers.length; i++) {
+            final List<UIContext> partition = partitions.get(i);
+            if (partition.isEmpty()) continue;
+            try {
+                workers[i].execute(() -> partition.forEach(uiContext -> deliver(uiContext, broadcast)));
+            } catch (final Throwable e) {
+                log.error("Cannot broadcast on the channel " + channel, e);
+                partition.forEach(uiContext -> broadcast.release());
+            }
+        }
+        broadcast.release();
+    }
+
+    private static void deliver(final UIContext uiContext, final Broadcast broadcast) {
+        if (!uiContext.isLiving()) {
+            broadcast.release();
+            return;
+        }
+        // Set by the one that releases the reference, the task or this method if the task can't be run
+        final AtomicBoolean owned = new AtomicBoolean();
+        try {
+            // With a mailbox, the delivery is committed with the other pending tasks of the UIContext
+            uiContext.execute(() -> {
+                if (!owned.compareAndSet(false, true)) return;
+                try {
+                    uiContext.getContext().writeBroadcast(broadcast);
+                } finally {
+                    broadcast.release();
+                }
+            });
+        } catch (final Throwable e) {
+            log.error("Cannot broadcast on the channel " + broadcast.getChannel() + " to UIContext #" + uiContext.getID(), e);
+            if (owned.compareAndSet(false, true)) broadcast.release();
+        }
+    }
+
+}
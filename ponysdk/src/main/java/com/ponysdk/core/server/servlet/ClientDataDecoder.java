@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.io.StringReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.model.ClientValueTypeModel;
+import com.ponysdk.core.model.ProtocolVersion;
+
+/**
+ * Decodes the binary frames sent by the terminals with {@link ProtocolVersion#BINARY_CLIENT_DATA},
+ * see {@link ClientValueTypeModel}.<br>
+ * The whole frame is checked in a single pass that only reads the keys and skips the values, the
+ * flat {@link ClientDataValues} then decode a value from the frame when it is accessed for the
+ * first time : the widgets keep reading their instructions as JSON, but only the members they read
+ * are decoded. The decoded object holds the frame.<br>
+ * A malformed frame is rejected with an {@link IllegalArgumentException}.
+ */
+class ClientDataDecoder {
+
+    private static final ClientToServerModel[] CLIENT_TO_SERVER_MODELS = ClientToServerModel.values();
+    private static final ClientValueTypeModel[] CLIENT_VALUE_TYPE_MODELS = ClientValueTypeModel.values();
+
+    // The terminal instructions are shallow, a deeper frame is malformed or hostile
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] payload;
+    private final int offset;
+    private final int length;
+
+    private ClientDataDecoder(final byte[] payload, final int offset, final int length) {
+        this.payload = payload;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    static JsonObject decode(final byte[] payload, final int offset, final int length) {
+        final ClientDataDecoder decoder = new ClientDataDecoder(payload, offset, length);
+        final ByteBuffer buffer = decoder.frame(offset);
+        final JsonObject jsonObject;
+        try {
+            jsonObject = decoder.readObject(buffer, 0);
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame of " + length + " bytes");
+        }
+        if (buffer.hasRemaining()) throw new IllegalArgumentException(buffer.remaining() + " unexpected bytes at the end of the frame");
+        return jsonObject;
+    }
+
+    private ByteBuffer frame(final int position) {
+        final ByteBuffer buffer = ByteBuffer.wrap(payload, offset, length);
+        buffer.position(position);
+        return buffer;
+    }
+
+    /**
+     * Reads the keys, the values are checked and skipped
+     */
+    private JsonObject readObject(final ByteBuffer buffer, final int depth) {
+        // A key and a value type at least per entry
+        final int size = readSize(buffer, 2);
+        final String[] keys = new String[size];
+        final int[] starts = new int[size];
+        for (int i = 0; i < size; i++) {
+            final int key = buffer.get() & 0xFF;
+            if (key >= CLIENT_TO_SERVER_MODELS.length) throw new IllegalArgumentException("Unknown model : " + key);
+            keys[i] = CLIENT_TO_SERVER_MODELS[key].toStringValue();
+            starts[i] = buffer.position();
+            skipValue(buffer, depth);
+        }
+        return new ClientDataValues.ObjectValue(keys, index -> readValue(frame(starts[index]), depth));
+    }
+
+    /**
+     * Reads the positions of the elements, they are checked and skipped
+     */
+    private JsonArray readArray(final ByteBuffer buffer, final int depth) {
+        final int size = readSize(buffer, 1);
+        final int[] starts = new int[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = buffer.position();
+            skipValue(buffer, depth);
+        }
+        return new ClientDataValues.ArrayValue(size, index -> readValue(frame(starts[index]), depth));
+    }
+
+    private static ClientValueTypeModel readType(final ByteBuffer buffer, final int depth) {
+        final int typeValue = buffer.get() & 0xFF;
+        if (typeValue >= CLIENT_VALUE_TYPE_MODELS.length) throw new IllegalArgumentException("Unknown value type : " + typeValue);
+        final ClientValueTypeModel type = CLIENT_VALUE_TYPE_MODELS[typeValue];
+        if ((type == ClientValueTypeModel.OBJECT || type == ClientValueTypeModel.ARRAY) && depth == MAX_DEPTH)
+            throw new IllegalArgumentException("More than " + MAX_DEPTH + " nested values");
+        return type;
+    }
+
+    private void skipValue(final ByteBuffer buffer, final int depth) {
+        final ClientValueTypeModel type = readType(buffer, depth);
+        switch (type) {
+            case NULL:
+            case TRUE:
+            case FALSE:
+                break;
+            case INTEGER:
+                readVarInt(buffer);
+                break;
+            case DOUBLE:
+                skip(buffer, Double.BYTES);
+                break;
+            case STRING:
+            case JSON:
+                skip(buffer, readSize(buffer, 1));
+                break;
+            case OBJECT:
+                final int entries = readSize(buffer, 2);
+                for (int i = 0; i < entries; i++) {
+                    final int key = buffer.get() & 0xFF;
+                    if (key >= CLIENT_TO_SERVER_MODELS.length) throw new IllegalArgumentException("Unknown model : " + key);
+                    skipValue(buffer, depth + 1);
+                }
+                break;
+            case ARRAY:
+                final int size = readSize(buffer, 1);
+                for (int i = 0; i < size; i++) {
+                    skipValue(buffer, depth + 1);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown value type : " + type);
+        }
+    }
+
+    private static void skip(final ByteBuffer buffer, final int length) {
+        if (buffer.remaining() < length) throw new BufferUnderflowException();
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Decodes a value that has already been checked by {@link #skipValue(ByteBuffer, int)}
+     */
+    private JsonValue readValue(final ByteBuffer buffer, final int depth) {
+        final ClientValueTypeModel type = readType(buffer, depth);
+        switch (type) {
+            case NULL:
+                return JsonValue.NULL;
+            case TRUE:
+                return JsonValue.TRUE;
+            case FALSE:
+                return JsonValue.FALSE;
+            case INTEGER:
+                final int zigzag = readVarInt(buffer);
+                return new ClientDataValues.NumberValue(zigzag >>> 1 ^ -(zigzag & 1), true);
+            case DOUBLE:
+                return new ClientDataValues.NumberValue(buffer.getDouble(), false);
+            case STRING:
+                return new ClientDataValues.StringValue(readString(buffer));
+            case OBJECT:
+                return readObject(buffer, depth + 1);
+            case ARRAY:
+                return readArray(buffer, depth + 1);
+            case JSON:
+                try (JsonReader reader = Json.createReader(new StringReader(readString(buffer)))) {
+                    return reader.read();
+                } catch (final JsonException e) {
+                    throw new IllegalArgumentException("Malformed JSON value", e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown value type : " + type);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = readSize(buffer, 1);
+        final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * @param minElementLength
+     *            the minimum length in bytes of an element, the elements can't be more than the
+     *            remaining bytes allow
+     */
+    private static int readSize(final ByteBuffer buffer, final int minElementLength) {
+        final int size = readVarInt(buffer);
+        if (size < 0 || size > buffer.remaining() / minElementLength)
+            throw new IllegalArgumentException("Size " + size + " exceeds the " + buffer.remaining() + " remaining bytes");
+        return size;
+    }
+
+    private static int readVarInt(final ByteBuffer buffer) {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) throw new IllegalArgumentException("Varint longer than 5 bytes");
+            b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+}
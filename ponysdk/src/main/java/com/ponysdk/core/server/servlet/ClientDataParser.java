@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Parses the text frames sent by the terminals into the flat {@link ClientDataValues}.<br>
+ * Only the structure of the message and the keys of the objects are read before the dispatch : the
+ * position of each value is kept and the value is parsed from the text when it is accessed for the
+ * first time. The UIContext reads the object ID and the handler type to find the widget, which then
+ * only parses the members it needs.<br>
+ * Unlike {@link Json#createReader(java.io.Reader)}, no builder nor map is created for the
+ * instructions. A malformed value is only reported when it is accessed.
+ */
+final class ClientDataParser {
+
+    // The integers with less digits always fit in an int and are read without BigDecimal
+    private static final int MAX_INT_DIGITS = 9;
+
+    private final String text;
+    private int position;
+
+    private ClientDataParser(final String text, final int position) {
+        this.text = text;
+        this.position = position;
+    }
+
+    static JsonObject parse(final String text) {
+        final ClientDataParser parser = new ClientDataParser(text, 0);
+        parser.skipWhitespaces();
+        if (parser.position == text.length() || text.charAt(parser.position) != '{')
+            throw new IllegalArgumentException("The message is not a JSON object : " + text);
+        final JsonObject jsonObject = parser.readObject();
+        parser.skipWhitespaces();
+        if (parser.position != text.length())
+            throw new IllegalArgumentException("Unexpected character at " + parser.position + " at the end of : " + text);
+        return jsonObject;
+    }
+
+    private static JsonValue readValue(final String text, final int position) {
+        return new ClientDataParser(text, position).readValue();
+    }
+
+    private JsonValue readValue() {
+        switch (current()) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return new ClientDataValues.StringValue(readString());
+            case 't':
+                readLiteral("true");
+                return JsonValue.TRUE;
+            case 'f':
+                readLiteral("false");
+                return JsonValue.FALSE;
+            case 'n':
+                readLiteral("null");
+                return JsonValue.NULL;
+            default:
+                return readNumber();
+        }
+    }
+
+    /**
+     * Reads the keys, the values are skipped
+     */
+    private JsonObject readObject() {
+        position++;
+        String[] keys = new String[8];
+        int[] starts = new int[8];
+        int size = 0;
+        skipWhitespaces();
+        if (current() == '}') {
+            position++;
+        } else {
+            while (true) {
+                if (current() != '"') throw unexpected("a key");
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size << 1);
+                    starts = Arrays.copyOf(starts, size << 1);
+                }
+                keys[size] = readString();
+                skipWhitespaces();
+                if (current() != ':') throw unexpected("':'");
+                position++;
+                skipWhitespaces();
+                starts[size++] = position;
+                skipValue();
+                skipWhitespaces();
+                final char c = current();
+                position++;
+                if (c == '}') break;
+                else if (c != ',') throw unexpected("',' or '}'");
+                skipWhitespaces();
+            }
+        }
+        final int[] valueStarts = Arrays.copyOf(starts, size);
+        return new ClientDataValues.ObjectValue(Arrays.copyOf(keys, size), index -> readValue(text, valueStarts[index]));
+    }
+
+    /**
+     * Reads the positions of the elements, they are skipped
+     */
+    private JsonValue readArray() {
+        position++;
+        int[] starts = new int[8];
+        int size = 0;
+        skipWhitespaces();
+        if (current() == ']') {
+            position++;
+        } else {
+            while (true) {
+                if (size == starts.length) starts = Arrays.copyOf(starts, size << 1);
+                starts[size++] = position;
+                skipValue();
+                skipWhitespaces();
+                final char c = current();
+                position++;
+                if (c == ']') break;
+                else if (c != ',') throw unexpected("',' or ']'");
+                skipWhitespaces();
+            }
+        }
+        final int[] valueStarts = Arrays.copyOf(starts, size);
+        return new ClientDataValues.ArrayValue(size, index -> readValue(text, valueStarts[index]));
+    }
+
+    /**
+     * Moves after the value, the strings and the nesting are checked but not the literals and the
+     * numbers
+     */
+    private void skipValue() {
+        final char first = current();
+        if (first == '"') {
+            skipString();
+        } else if (first == '{' || first == '[') {
+            int depth = 0;
+            do {
+                final char c = current();
+                if (c == '"') {
+                    skipString();
+                    continue;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        } else {
+            final int start = position;
+            while (position < text.length() && !isDelimiter(text.charAt(position))) {
+                position++;
+            }
+            if (position == start) throw unexpected("a value");
+        }
+    }
+
+    private static boolean isDelimiter(final char c) {
+        return c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private void skipString() {
+        position++;
+        while (true) {
+            final char c = current();
+            position++;
+            if (c == '"') return;
+            else if (c == '\\') position++;
+        }
+    }
+
+    private String readString() {
+        final int start = ++position;
+        // Most strings have no escaped character and are a substring of the message
+        while (true) {
+            final char c = current();
+            if (c == '"') {
+                position++;
+                return text.substring(start, position - 1);
+            } else if (c == '\\') {
+                break;
+            }
+            position++;
+        }
+        final StringBuilder builder = new StringBuilder(position - start + 16);
+        builder.append(text, start, position);
+        while (true) {
+            char c = current();
+            position++;
+            if (c == '"') return builder.toString();
+            if (c == '\\') {
+                c = current();
+                position++;
+                switch (c) {
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) throw unexpected("an unicode escape");
+                        try {
+                            c = (char) Integer.parseInt(text.substring(position, position + 4), 16);
+                        } catch (final NumberFormatException e) {
+                            throw unexpected("an unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    default:
+                        throw unexpected("an escaped character");
+                }
+            }
+            builder.append(c);
+        }
+    }
+
+    private void readLiteral(final String literal) {
+        if (!text.startsWith(literal, position)) throw unexpected(literal);
+        position += literal.length();
+    }
+
+    private JsonValue readNumber() {
+        final int start = position;
+        boolean integral = true;
+        while (position < text.length() && !isDelimiter(text.charAt(position))) {
+            final char c = text.charAt(position++);
+            if (c == '.' || c == 'e' || c == 'E') integral = false;
+        }
+        final int digits = text.charAt(start) == '-' ? position - start - 1 : position - start;
+        try {
+            final String number = text.substring(start, position);
+            if (integral && digits <= MAX_INT_DIGITS) return new ClientDataValues.NumberValue(Integer.parseInt(number), true);
+            else return new ClientDataValues.NumberValue(new BigDecimal(number));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number at " + start + " in : " + text);
+        }
+    }
+
+    private void skipWhitespaces() {
+        while (position < text.length()) {
+            final char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+            position++;
+        }
+    }
+
+    private char current() {
+        if (position >= text.length()) throw new IllegalArgumentException("Unexpected end of : " + text);
+        return text.charAt(position);
+    }
+
+    private IllegalArgumentException unexpected(final String expected) {
+        return new IllegalArgumentException("Expected " + expected + " at " + position + " in : " + text);
+    }
+
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+/**
+ * Flat read-only {@link JsonObject} and {@link JsonArray} implementations used for the instructions
+ * received from the terminals : the members are kept in arrays in the order they were read, which is
+ * cheaper to build than a map for the few keys of an instruction.<br>
+ * The values can be read from a {@link ValueSource} when they are accessed for the first time, so a
+ * widget only pays for the members it reads.
+ */
+final class ClientDataValues {
+
+    private ClientDataValues() {
+    }
+
+    /**
+     * Reads the value of a member or of an element when it is accessed for the first time
+     */
+    @FunctionalInterface
+    interface ValueSource {
+
+        JsonValue read(int index);
+
+    }
+
+    private static String toJson(final JsonValue value) {
+        final StringWriter writer = new StringWriter();
+        try (JsonWriter jsonWriter = Json.createWriter(writer)) {
+            if (value instanceof JsonObject) jsonWriter.writeObject((JsonObject) value);
+            else jsonWriter.writeArray((JsonArray) value);
+        }
+        return writer.toString();
+    }
+
+    static final class ObjectValue extends AbstractMap<String, JsonValue> implements JsonObject {
+
+        private final String[] keys;
+        private final JsonValue[] values;
+        private final ValueSource source;
+
+        ObjectValue(final String[] keys, final JsonValue[] values) {
+            this.keys = keys;
+            this.values = values;
+            this.source = null;
+        }
+
+        ObjectValue(final String[] keys, final ValueSource source) {
+            this.keys = keys;
+            this.values = new JsonValue[keys.length];
+            this.source = source;
+        }
+
+        private JsonValue value(final int index) {
+            JsonValue value = values[index];
+            if (value == null) {
+                value = source.read(index);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        private int indexOf(final Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                // The keys are the ClientToServerModel constants, so the identity is checked first
+                if (keys[i] == key || keys[i].equals(key)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public JsonValue get(final Object key) {
+            final int index = indexOf(key);
+            return index != -1 ? value(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return indexOf(key) != -1;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            return new AbstractSet<Entry<String, JsonValue>>() {
+
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<Entry<String, JsonValue>>() {
+
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            final Entry<String, JsonValue> entry = new SimpleImmutableEntry<>(keys[index], value(index));
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+
+        @Override
+        public JsonArray getJsonArray(final String name) {
+            return (JsonArray) get(name);
+        }
+
+        @Override
+        public JsonObject getJsonObject(final String name) {
+            return (JsonObject) get(name);
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(final String name) {
+            return (JsonNumber) get(name);
+        }
+
+        @Override
+        public JsonString getJsonString(final String name) {
+            return (JsonString) get(name);
+        }
+
+        @Override
+        public String getString(final String name) {
+            return getJsonString(name).getString();
+        }
+
+        @Override
+        public String getString(final String name, final String defaultValue) {
+            final JsonValue value = get(name);
+            return value instanceof JsonString ? ((JsonString) value).getString() : defaultValue;
+        }
+
+        @Override
+        public int getInt(final String name) {
+            return getJsonNumber(name).intValue();
+        }
+
+        @Override
+        public int getInt(final String name, final int defaultValue) {
+            final JsonValue value = get(name);
+            return value instanceof JsonNumber ? ((JsonNumber) value).intValue() : defaultValue;
+        }
+
+        @Override
+        public boolean getBoolean(final String name) {
+            final JsonValue value = get(name);
+            if (value == null) throw new NullPointerException();
+            else if (value == JsonValue.TRUE) return true;
+            else if (value == JsonValue.FALSE) return false;
+            else throw new ClassCastException();
+        }
+
+        @Override
+        public boolean getBoolean(final String name, final boolean defaultValue) {
+            final JsonValue value = get(name);
+            if (value == JsonValue.TRUE) return true;
+            else if (value == JsonValue.FALSE) return false;
+            else return defaultValue;
+        }
+
+        @Override
+        public boolean isNull(final String name) {
+            return get(name).equals(JsonValue.NULL);
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.OBJECT;
+        }
+
+        @Override
+        public String toString() {
+            return toJson(this);
+        }
+    }
+
+    static final class ArrayValue extends AbstractList<JsonValue> implements JsonArray {
+
+        private final JsonValue[] values;
+        private final ValueSource source;
+
+        ArrayValue(final JsonValue[] values) {
+            this.values = values;
+            this.source = null;
+        }
+
+        ArrayValue(final int size, final ValueSource source) {
+            this.values = new JsonValue[size];
+            this.source = source;
+        }
+
+        @Override
+        public JsonValue get(final int index) {
+            JsonValue value = values[index];
+            if (value == null) {
+                value = source.read(index);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public JsonObject getJsonObject(final int index) {
+            return (JsonObject) get(index);
+        }
+
+        @Override
+        public JsonArray getJsonArray(final int index) {
+            return (JsonArray) get(index);
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(final int index) {
+            return (JsonNumber) get(index);
+        }
+
+        @Override
+        public JsonString getJsonString(final int index) {
+            return (JsonString) get(index);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T extends JsonValue> List<T> getValuesAs(final Class<T> clazz) {
+            return (List<T>) this;
+        }
+
+        @Override
+        public String getString(final int index) {
+            return getJsonString(index).getString();
+        }
+
+        @Override
+        public String getString(final int index, final String defaultValue) {
+            final JsonValue value = index < values.length ? get(index) : null;
+            return value instanceof JsonString ? ((JsonString) value).getString() : defaultValue;
+        }
+
+        @Override
+        public int getInt(final int index) {
+            return getJsonNumber(index).intValue();
+        }
+
+        @Override
+        public int getInt(final int index, final int defaultValue) {
+            final JsonValue value = index < values.length ? get(index) : null;
+            return value instanceof JsonNumber ? ((JsonNumber) value).intValue() : defaultValue;
+        }
+
+        @Override
+        public boolean getBoolean(final int index) {
+            final JsonValue value = get(index);
+            if (value == JsonValue.TRUE) return true;
+            else if (value == JsonValue.FALSE) return false;
+            else throw new ClassCastException();
+        }
+
+        @Override
+        public boolean getBoolean(final int index, final boolean defaultValue) {
+            final JsonValue value = index < values.length ? get(index) : null;
+            if (value == JsonValue.TRUE) return true;
+            else if (value == JsonValue.FALSE) return false;
+            else return defaultValue;
+        }
+
+        @Override
+        public boolean isNull(final int index) {
+            return get(index).equals(JsonValue.NULL);
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.ARRAY;
+        }
+
+        @Override
+        public String toString() {
+            return toJson(this);
+        }
+    }
+
+    static final class NumberValue implements JsonNumber {
+
+        private final double value;
+        private final boolean integral;
+        // Only set for the numbers that can't be held by a double without loss
+        private final BigDecimal decimal;
+
+        NumberValue(final double value, final boolean integral) {
+            this.value = value;
+            this.integral = integral;
+            this.decimal = null;
+        }
+
+        NumberValue(final BigDecimal decimal) {
+            this.value = decimal.doubleValue();
+            this.integral = decimal.scale() == 0;
+            this.decimal = decimal;
+        }
+
+        @Override
+        public boolean isIntegral() {
+            return integral;
+        }
+
+        @Override
+        public int intValue() {
+            return decimal != null ? decimal.intValue() : (int) value;
+        }
+
+        @Override
+        public int intValueExact() {
+            return bigDecimalValue().intValueExact();
+        }
+
+        @Override
+        public long longValue() {
+            return decimal != null ? decimal.longValue() : (long) value;
+        }
+
+        @Override
+        public long longValueExact() {
+            return bigDecimalValue().longValueExact();
+        }
+
+        @Override
+        public BigInteger bigIntegerValue() {
+            return bigDecimalValue().toBigInteger();
+        }
+
+        @Override
+        public BigInteger bigIntegerValueExact() {
+            return bigDecimalValue().toBigIntegerExact();
+        }
+
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public BigDecimal bigDecimalValue() {
+            if (decimal != null) return decimal;
+            else return integral ? BigDecimal.valueOf((long) value) : BigDecimal.valueOf(value);
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.NUMBER;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof JsonNumber && bigDecimalValue().equals(((JsonNumber) obj).bigDecimalValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return bigDecimalValue().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return bigDecimalValue().toString();
+        }
+    }
+
+    static final class StringValue implements JsonString {
+
+        private final String value;
+
+        StringValue(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getString() {
+            return value;
+        }
+
+        @Override
+        public CharSequence getChars() {
+            return value;
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.STRING;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof JsonString && value.equals(((JsonString) obj).getString());
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\') builder.append('\\').append(c);
+                else if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+                else builder.append(c);
+            }
+            return builder.append('"').toString();
+        }
+    }
+
+}
@@ -23,8 +23,11 @@
 
 package com.ponysdk.core.server.servlet;
 
-import java.util.concurrent.RunnableScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -35,14 +38,25 @@ import org.slf4j.LoggerFactory;
 import com.ponysdk.core.server.application.ApplicationManagerOption;
 import com.ponysdk.core.server.application.UIContext;
 
+/**
+ * Checks that the terminal of a UIContext is still alive.
+ * <p>
+ * A single sweeper thread checks all the UIContexts, they are stored in a wheel by time of their
+ * next check : an active UIContext is only visited once per heartbeat period. A heartbeat is only
+ * sent to a UIContext that has received nothing for a period, the pings used for the latency are
+ * requested at each visit and sent with the next frame of the UIContext.
+ */
 public class CommunicationSanityChecker {
 
     private static final Logger log = LoggerFactory.getLogger(CommunicationSanityChecker.class);
 
     private static final int CHECK_PERIOD = 1000;
+    // The visits are bounded so that a change of the heartbeat period is taken into account
+    private static final long MAX_CHECK_PERIOD = TimeUnit.MINUTES.toMillis(1);
     private static final int MAX_THREAD_CHECKER = Integer.parseInt(
         System.getProperty("communication.sanity.checker.thread.count", String.valueOf(Runtime.getRuntime().availableProcessors())));
-    protected static final ScheduledThreadPoolExecutor sanityCheckerTimer = new ScheduledThreadPoolExecutor(MAX_THREAD_CHECKER,
+    // Send the heartbeats and destroy the dead UIContexts, the sweeper never waits for a UIContext lock
+    private static final ExecutorService sanityCheckerWorkers = Executors.newFixedThreadPool(MAX_THREAD_CHECKER,
         new ThreadFactory() {
 
             private int i = 0;
@@ -55,18 +69,33 @@ public class CommunicationSanityChecker {
                 return t;
             }
         });
+    private static final ScheduledExecutorService sanityCheckerTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r);
+        t.setName(CommunicationSanityChecker.class.getName() + "-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Sweeper sweeper = new Sweeper();
+
+    static {
+        sanityCheckerTimer.scheduleWithFixedDelay(sweeper, CHECK_PERIOD, CHECK_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
     private static final long HEARTBEAT_PERIOD_BLOCKED = TimeUnit.MINUTES.toMillis(10);
 
     protected final AtomicBoolean started = new AtomicBoolean(false);
     private final UIContext uiContext;
-    private long heartBeatPeriod;
-    private long lastReceivedTime;
-    private RunnableScheduledFuture<?> sanityChecker;
+    private volatile long heartBeatPeriod;
+    private volatile long lastReceivedTime;
     private CommunicationState currentState;
     private long suspectTime = -1;
 
     private long oldHeartBeatPeriod;
 
+    // Only accessed by the sweeper
+    private long nextCheckTime;
+    private CommunicationSanityChecker next;
+
     private static enum CommunicationState {
         OK,
         SUSPECT,
@@ -86,30 +115,16 @@ public class CommunicationSanityChecker {
 
     public void start() {
         lastReceivedTime = System.currentTimeMillis();
-        if (!isStarted()) {
+        if (started.compareAndSet(false, true)) {
             currentState = CommunicationState.OK;
-            sanityChecker = (RunnableScheduledFuture<?>) sanityCheckerTimer.scheduleWithFixedDelay(() -> {
-                try {
-                    checkCommunicationState();
-                } catch (final Throwable e) {
-                    log.error("Error while checking communication state on UIContext #{}", uiContext.getID(), e);
-                }
-            }, 10, CHECK_PERIOD, TimeUnit.MILLISECONDS);
-            started.set(true);
+            sweeper.register(this);
             log.info("Start communication sanity checker on UIContext #{} with period: {} ms", uiContext.getID(), heartBeatPeriod);
         }
     }
 
     public void stop() {
-        if (isStarted()) {
-            if (sanityChecker != null) {
-                sanityChecker.cancel(false);
-                sanityCheckerTimer.remove(sanityChecker);
-                sanityChecker = null;
-            }
-            started.set(false);
-            log.info("Stop communication sanity checker on UIContext #{}", uiContext.getID());
-        }
+        // The sweeper drops the checker on its next visit
+        if (started.compareAndSet(true, false)) log.info("Stop communication sanity checker on UIContext #{}", uiContext.getID());
     }
 
     public void onMessageReceived() {
@@ -127,8 +142,13 @@ public class CommunicationSanityChecker {
         return now - lastReceivedTime >= heartBeatPeriod;
     }
 
-    protected void checkCommunicationState() {
-        final long now = System.currentTimeMillis();
+    /**
+     * Called by the sweeper
+     *
+     * @return the time of the next check, -1 if the checker is stopped
+     */
+    protected long checkCommunicationState(final long now) {
+        if (!isStarted()) return -1;
         switch (currentState) {
             case OK:
                 if (isCommunicationSuspectedToBeNonFunctional(now)) {
@@ -137,7 +157,6 @@ public class CommunicationSanityChecker {
                     if (log.isDebugEnabled()) log.debug(
                         "No message have been received on UIContext #{}, communication suspected to be non functional, sending heartbeat...",
                         uiContext.getID());
-                    //uiContext.sendHeartBeat();
                 }
                 break;
             case SUSPECT:
@@ -150,7 +169,8 @@ public class CommunicationSanityChecker {
                             uiContext.getID());
                         currentState = CommunicationState.KO;
                         stop();
-                        uiContext.destroy();
+                        sanityCheckerWorkers.execute(uiContext::destroy);
+                        return -1;
                     }
                 } else {
                     currentState = CommunicationState.OK;
@@ -159,11 +179,21 @@ public class CommunicationSanityChecker {
                 break;
             case KO:
             default:
-                break;
+                return -1;
         }
 
-        uiContext.sendHeartBeat();
-        uiContext.sendRoundTrip();
+        // Sent with the next frame of the UIContext
+        uiContext.requestRoundTrip();
+
+        final long nextCheck;
+        if (CommunicationState.SUSPECT == currentState) {
+            // Idle UIContext, the heartbeat is a frame that also carries the ping
+            sanityCheckerWorkers.execute(uiContext::sendHeartBeat);
+            nextCheck = suspectTime + heartBeatPeriod;
+        } else {
+            nextCheck = lastReceivedTime + heartBeatPeriod;
+        }
+        return Math.min(Math.max(nextCheck, now + CHECK_PERIOD), now + MAX_CHECK_PERIOD);
     }
 
     /**
@@ -179,4 +209,78 @@ public class CommunicationSanityChecker {
         }
     }
 
+    /**
+     * Hashed wheel of the checkers, one slot per {@link #CHECK_PERIOD}. A slot is a linked list of
+     * the checkers to visit at this time, or a multiple of the wheel length later.
+     */
+    private static final class Sweeper implements Runnable {
+
+        private static final int SLOTS = 64;
+
+        private final CommunicationSanityChecker[] slots = new CommunicationSanityChecker[SLOTS];
+        private final Queue<CommunicationSanityChecker> registrations = new ConcurrentLinkedQueue<>();
+        private long lastTick = System.currentTimeMillis() / CHECK_PERIOD;
+        private long currentTick = lastTick;
+
+        void register(final CommunicationSanityChecker checker) {
+            registrations.add(checker);
+        }
+
+        @Override
+        public void run() {
+            try {
+                sweep(System.currentTimeMillis());
+            } catch (final Throwable e) {
+                log.error("Error while checking communication states", e);
+            }
+        }
+
+        private void sweep(final long now) {
+            currentTick = now / CHECK_PERIOD;
+            CommunicationSanityChecker checker;
+            while ((checker = registrations.poll()) != null) {
+                checker.nextCheckTime = now + CHECK_PERIOD;
+                add(checker);
+            }
+
+            // A late sweep visits the missed slots, at most the whole wheel
+            for (long t = Math.max(lastTick + 1, currentTick - SLOTS + 1); t <= currentTick; t++) {
+                final int slot = (int) (t % SLOTS);
+                checker = slots[slot];
+                slots[slot] = null;
+                while (checker != null) {
+                    final CommunicationSanityChecker next = checker.next;
+                    checker.next = null;
+                    visit(checker, now);
+                    checker = next;
+                }
+            }
+            lastTick = currentTick;
+        }
+
+        private void visit(final CommunicationSanityChecker checker, final long now) {
+            if (checker.nextCheckTime > now) {
+                if (checker.isStarted()) add(checker);
+                return;
+            }
+            try {
+                final long nextCheckTime = checker.checkCommunicationState(now);
+                if (nextCheckTime == -1) return;
+                checker.nextCheckTime = nextCheckTime;
+            } catch (final Throwable e) {
+                log.error("Error while checking communication state on UIContext #{}", checker.uiContext.getID(), e);
+                checker.nextCheckTime = now + CHECK_PERIOD;
+            }
+            add(checker);
+        }
+
+        private void add(final CommunicationSanityChecker checker) {
+            // The slots up to the current tick are already visited
+            final int slot = (int) (Math.max(checker.nextCheckTime / CHECK_PERIOD, currentTick + 1) % SLOTS);
+            checker.next = slots[slot];
+            slots[slot] = checker;
+        }
+
+    }
+
 }
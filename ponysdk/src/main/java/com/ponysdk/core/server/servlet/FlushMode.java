@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.server.servlet;
+
+/**
+ * When the instructions written by a transaction are sent to the terminal. In every mode, the
+ * buffer is still flushed as soon as a full chunk is pending.
+ */
+public enum FlushMode {
+
+    /**
+     * Each flush request (transaction commit, heart beat...) sends the pending data
+     */
+    IMMEDIATE,
+
+    /**
+     * A flush request only marks the buffer as dirty, the pending data are sent at the end of the
+     * flush window, so all the transactions committed in this window share the same frames
+     */
+    TIME_WINDOW,
+
+    /**
+     * A flush request sends the pending data if they reach the size threshold, otherwise they are
+     * sent at the end of the flush window
+     */
+    SIZE_THRESHOLD
+
+}
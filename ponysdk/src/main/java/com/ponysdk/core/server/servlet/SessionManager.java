@@ -29,8 +29,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.json.JsonObject;
+
 import com.ponysdk.core.server.application.Application;
 import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.application.UIContextIndex;
 
 public class SessionManager {
 
@@ -67,11 +70,21 @@ public class SessionManager {
     }
 
     public UIContext getUIcontext(final int id) {
-        return applications.values().stream().map(app -> app.getUIContext(id)).findFirst().orElse(null);
+        return UIContextIndex.get().getUIContext(id);
+    }
+
+    /**
+     * Sends the data to the terminals of the UIContexts of all the applications, it is encoded once
+     * for all of them, see {@link Broadcaster}
+     */
+    public void broadcast(final String channel, final JsonObject data) {
+        final List<UIContext> uiContexts = new ArrayList<>();
+        UIContextIndex.get().forEach(uiContexts::add);
+        Broadcaster.broadcast(uiContexts, channel, data);
     }
 
     public int countUIContexts() {
-        return applications.values().stream().mapToInt(Application::countUIContexts).sum();
+        return UIContextIndex.get().size();
     }
 
 }
@@ -25,6 +25,7 @@ package com.ponysdk.core.server.servlet;
 
 import java.io.IOException;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -35,7 +36,9 @@ import org.slf4j.LoggerFactory;
 
 import com.ponysdk.core.model.ClientToServerModel;
 import com.ponysdk.core.server.application.Application;
+import com.ponysdk.core.server.application.ExecutionMode;
 import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.concurrent.VirtualThreads;
 import com.ponysdk.core.ui.eventbus.StreamHandler;
 
 /**
@@ -55,13 +58,38 @@ public class StreamServiceServlet extends HttpServlet {
             final UIContext uiContext = application.getUIContext(uiContextID);
             final StreamHandler streamHandler = uiContext
                 .removeStreamListener(Integer.parseInt(req.getParameter(ClientToServerModel.STREAM_REQUEST_ID.toStringValue())));
-            streamHandler.onStream(req, resp, uiContext);
+            if (ExecutionMode.VIRTUAL_THREAD == application.getOptions().getExecutionMode() && VirtualThreads.isSupported()
+                    && req.isAsyncSupported()) {
+                // The handler can block on I/O, it doesn't hold the container thread
+                final AsyncContext asyncContext = req.startAsync();
+                asyncContext.setTimeout(0);
+                VirtualThreads.executor().execute(() -> {
+                    try {
+                        streamHandler.onStream(req, resp, uiContext);
+                    } catch (final Exception e) {
+                        log.error("Cannot stream request", e);
+                        sendError(resp, e);
+                    } finally {
+                        asyncContext.complete();
+                    }
+                });
+            } else {
+                streamHandler.onStream(req, resp, uiContext);
+            }
         } catch (final Exception e) {
             log.error("Cannot stream request", e);
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
         }
     }
 
+    private static void sendError(final HttpServletResponse resp, final Exception e) {
+        try {
+            if (!resp.isCommitted()) resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        } catch (final IOException e1) {
+            log.error("Cannot send error", e1);
+        }
+    }
+
     @Override
     protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
         streamRequest(req, resp);
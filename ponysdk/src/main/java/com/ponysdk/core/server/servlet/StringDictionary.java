@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import com.ponysdk.core.model.ServerToClientModel;
+
+/**
+ * Session scoped dictionary of the strings that are sent again and again to the terminal (style
+ * names, property keys, sizes, ...).<br>
+ * The first use of a string defines it with an ID, next uses only send the ID. The dictionary is
+ * bounded : when it is full, the least recently used entry is evicted and its ID is reused by the
+ * next definition, which overrides the terminal side entry.<br>
+ * Not thread safe, it is owned by the {@link WebSocketPusher} writer thread.
+ */
+class StringDictionary {
+
+    private static final int MAX_STRING_LENGTH = 64;
+
+    private static final Set<ServerToClientModel> DICTIONARY_MODELS = EnumSet.of(ServerToClientModel.PUT_STYLE_KEY,
+        ServerToClientModel.STYLE_VALUE, ServerToClientModel.REMOVE_STYLE_KEY, ServerToClientModel.PUT_PROPERTY_KEY,
+        ServerToClientModel.PUT_ATTRIBUTE_KEY, ServerToClientModel.REMOVE_ATTRIBUTE_KEY, ServerToClientModel.ADD_STYLE_NAME,
+        ServerToClientModel.REMOVE_STYLE_NAME, ServerToClientModel.STYLE_NAME, ServerToClientModel.STYLE_PRIMARY_NAME,
+        ServerToClientModel.WIDGET_WIDTH, ServerToClientModel.WIDGET_HEIGHT, ServerToClientModel.CELL_WIDTH,
+        ServerToClientModel.CELL_HEIGHT, ServerToClientModel.ROW_FORMATTER_ADD_STYLE_NAME,
+        ServerToClientModel.ROW_FORMATTER_REMOVE_STYLE_NAME, ServerToClientModel.ROW_FORMATTER_SET_STYLE_NAME,
+        ServerToClientModel.CELL_FORMATTER_ADD_STYLE_NAME, ServerToClientModel.CELL_FORMATTER_REMOVE_STYLE_NAME,
+        ServerToClientModel.CELL_FORMATTER_SET_STYLE_NAME, ServerToClientModel.COLUMN_FORMATTER_COLUMN_WIDTH,
+        ServerToClientModel.COLUMN_FORMATTER_ADD_STYLE_NAME, ServerToClientModel.COLUMN_FORMATTER_REMOVE_STYLE_NAME,
+        ServerToClientModel.COLUMN_FORMATTER_SET_STYLE_NAME, ServerToClientModel.ADD_DATE_STYLE,
+        ServerToClientModel.REMOVE_DATE_STYLE, ServerToClientModel.TAG);
+
+    private final int maxSize;
+    // access ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Integer> idByString;
+
+    private int nextID = 0;
+
+    StringDictionary(final int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be greater than 0");
+        this.maxSize = maxSize;
+        this.idByString = new LinkedHashMap<>(Math.min(maxSize, 1 << 10), 0.75f, true);
+    }
+
+    /**
+     * @return true if the value is worth being sent through the dictionary for this model
+     */
+    boolean accept(final ServerToClientModel model, final String value) {
+        final int length = value.length();
+        return length != 0 && length <= MAX_STRING_LENGTH && DICTIONARY_MODELS.contains(model);
+    }
+
+    /**
+     * @return the ID of the value, or -1 if the value is not in the dictionary
+     */
+    int get(final String value) {
+        final Integer id = idByString.get(value);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Adds a value that is not in the dictionary, evicting the least recently used entry if needed
+     *
+     * @return the ID of the new entry
+     */
+    int put(final String value) {
+        final int id;
+        if (idByString.size() < maxSize) {
+            id = nextID++;
+        } else {
+            final Iterator<Integer> iterator = idByString.values().iterator();
+            id = iterator.next();
+            iterator.remove();
+        }
+        idByString.put(value, id);
+        return id;
+    }
+
+    int size() {
+        return idByString.size();
+    }
+
+}
@@ -23,13 +23,12 @@
 
 package com.ponysdk.core.server.servlet;
 
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
 import javax.servlet.http.HttpSession;
@@ -42,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.server.application.AbstractApplicationManager;
 import com.ponysdk.core.server.application.Application;
@@ -53,6 +53,9 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocket.class);
 
+    private static final int MAX_PENDING_BROADCASTS = Integer
+        .parseInt(System.getProperty("websocket.broadcast.pending.max", "1024"));
+
     private final ServletUpgradeRequest request;
     private final WebsocketMonitor monitor;
     private WebSocketPusher websocketPusher;
@@ -60,6 +63,10 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
 
     private TxnContext context;
     private Session session;
+    // Set by the communication sanity checker, the round trip is sent with the next frame
+    private volatile boolean roundTripRequested;
+    // Broadcasts received while the terminal is congested, only accessed with the UIContext lock
+    private final List<Broadcast> pendingBroadcasts = new ArrayList<>();
 
     WebSocket(final ServletUpgradeRequest request, final WebsocketMonitor monitor,
             final AbstractApplicationManager applicationManager) {
@@ -77,10 +84,12 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
             log.info("WebSocket connected from {}, sessionID={}, userAgent={}", session.getRemoteAddress(), applicationId, userAgent);
 
         this.session = session;
-        // 1K for max chunk size and 1M for total buffer size
+        // 4K for max chunk size, the pooled buffer starts at 64K and can grow up to 1M
         // Don't set max chunk size > 8K because when using Jetty Websocket compression, the chunks are limited to 8K
-        this.websocketPusher = new WebSocketPusher(session, 1 << 20, 1 << 12, TimeUnit.SECONDS.toMillis(60));
+        this.websocketPusher = new WebSocketPusher(session, 1 << 16, 1 << 20, 1 << 12, TimeUnit.SECONDS.toMillis(60));
         this.context = new TxnContext(this);
+        this.context.getWriter().setUpdateCoalescing(applicationManager.getOptions().isUpdateCoalescing());
+        this.context.getWriter().setMaxConflatedUpdates(applicationManager.getOptions().getMaxConflatedUpdates());
 
         Application application = SessionManager.get().getApplication(applicationId);
         if (application == null) {
@@ -95,14 +104,30 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
             final UIContext uiContext = new UIContext(context);
             if (log.isInfoEnabled()) log.info("Creating a new {}", uiContext);
             context.setUIContext(uiContext);
+            websocketPusher.setUIContext(uiContext);
             application.registerUIContext(uiContext);
 
+            final ProtocolVersion protocolVersion = ProtocolVersion.negotiate(getParameter(ClientToServerModel.PROTOCOL_VERSION),
+                applicationManager.getOptions().getMaxProtocolVersion());
+
             uiContext.begin();
             try {
+                // The terminal doesn't know the version yet, so this block is always encoded with the legacy version
                 beginObject();
                 encode(ServerToClientModel.CREATE_CONTEXT, uiContext.getID());
+                // Older terminals don't announce their version and don't expect an answer
+                if (protocolVersion != ProtocolVersion.LEGACY) {
+                    encode(ServerToClientModel.PROTOCOL_VERSION, protocolVersion.getValue());
+                    final int terminalBatchWindow = applicationManager.getOptions().getTerminalBatchWindow();
+                    if (terminalBatchWindow > 0) encode(ServerToClientModel.TERMINAL_BATCH_WINDOW, terminalBatchWindow);
+                }
                 endObject();
+                websocketPusher.setProtocolVersion(protocolVersion);
+                websocketPusher.setStringDictionarySize(applicationManager.getOptions().getStringDictionarySize());
                 flush();
+                // The context creation is always sent immediately
+                websocketPusher.setFlushPolicy(applicationManager.getOptions().getFlushMode(),
+                    applicationManager.getOptions().getFlushWindow(), applicationManager.getOptions().getFlushSizeThreshold());
             } catch (final Throwable e) {
                 log.error("Cannot send server heart beat to client", e);
             } finally {
@@ -124,7 +149,20 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
     public void onWebSocketClose(final int statusCode, final String reason) {
         if (log.isInfoEnabled()) log.info("WebSocket closed on UIContext #{} : {}, reason : {}", context.getUIContext().getID(),
             NiceStatusCode.getMessage(statusCode), reason != null ? reason : "");
-        if (isLiving()) context.getUIContext().onDestroy();
+        final UIContext uiContext = context.getUIContext();
+        if (isLiving()) uiContext.onDestroy();
+        if (uiContext != null) {
+            // Gives the buffer back to the pool, with the lock of the writer
+            uiContext.begin();
+            try {
+                releasePendingBroadcasts();
+                websocketPusher.close();
+            } finally {
+                uiContext.end();
+            }
+        } else {
+            websocketPusher.close();
+        }
     }
 
     /**
@@ -134,45 +172,20 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
     public void onWebSocketText(final String text) {
         final UIContext uiContext = context.getUIContext();
         if (isLiving()) {
-            if (monitor != null) monitor.onMessageReceived(WebSocket.this, text);
+            final boolean monitored = monitor != null && monitor.isEnabled();
+            if (monitored) monitor.onMessageReceived(WebSocket.this, text);
             try {
                 uiContext.notifyMessageReceived();
 
                 if (ClientToServerModel.HEARTBEAT.toStringValue().equals(text)) {
                     if (log.isDebugEnabled()) log.debug("Heartbeat received from terminal #{}", uiContext.getID());
                 } else {
-                    final JsonObject jsonObject = Json.createReader(new StringReader(text)).readObject();
-                    if (jsonObject.containsKey(ClientToServerModel.PING_SERVER.toStringValue())) {
-                        final long start = jsonObject.getJsonNumber(ClientToServerModel.PING_SERVER.toStringValue()).longValue();
-                        final long end = System.currentTimeMillis();
-                        if (log.isDebugEnabled())
-                            log.debug("Ping measurement : {} ms from terminal #{}", end - start, uiContext.getID());
-                        uiContext.addPingValue(end - start);
-                    } else if (jsonObject.containsKey(ClientToServerModel.APPLICATION_INSTRUCTIONS.toStringValue())) {
-                        final Application applicationSession = context.getApplication();
-                        if (applicationSession == null)
-                            throw new Exception("Invalid session, please reload your application (" + uiContext + ")");
-                        final String applicationInstructions = ClientToServerModel.APPLICATION_INSTRUCTIONS.toStringValue();
-                        uiContext.execute(() -> {
-                            final JsonArray appInstructions = jsonObject.getJsonArray(applicationInstructions);
-                            for (int i = 0; i < appInstructions.size(); i++) {
-                                uiContext.fireClientData(appInstructions.getJsonObject(i));
-                            }
-                        });
-                    } else if (jsonObject.containsKey(ClientToServerModel.INFO_MSG.toStringValue())) {
-                        if (log.isInfoEnabled()) log.info("Message from terminal #{} : {}", uiContext.getID(),
-                            jsonObject.getJsonString(ClientToServerModel.INFO_MSG.toStringValue()));
-                    } else if (jsonObject.containsKey(ClientToServerModel.ERROR_MSG.toStringValue())) {
-                        log.error("Message from terminal #{} : {}", uiContext.getID(),
-                            jsonObject.getJsonString(ClientToServerModel.ERROR_MSG.toStringValue()));
-                    } else {
-                        log.error("Unknow message from terminal #{} : {}", uiContext.getID(), text);
-                    }
+                    processMessage(uiContext, ClientDataParser.parse(text));
                 }
             } catch (final Throwable e) {
                 log.error("Cannot process message from terminal  #" + uiContext.getID() + " : " + text, e);
             } finally {
-                if (monitor != null) monitor.onMessageProcessed(WebSocket.this);
+                if (monitored) monitor.onMessageProcessed(WebSocket.this);
             }
         } else {
             if (log.isInfoEnabled()) log.info("UI Context is destroyed, message dropped from terminal : {}", text);
@@ -184,12 +197,67 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
      */
     @Override
     public void onWebSocketBinary(final byte[] payload, final int offset, final int len) {
-        // Can't receive binary data from terminal (GWT limitation)
+        final UIContext uiContext = context.getUIContext();
+        if (isLiving()) {
+            final JsonObject jsonObject;
+            try {
+                jsonObject = ClientDataDecoder.decode(payload, offset, len);
+            } catch (final IllegalArgumentException e) {
+                log.error("Malformed frame of {} bytes rejected from terminal #{} : {}", len, uiContext.getID(), e.getMessage());
+                return;
+            }
+            // The frame is only converted to a JSON text for an enabled monitor
+            final boolean monitored = monitor != null && monitor.isEnabled();
+            try {
+                if (monitored) monitor.onMessageReceived(WebSocket.this, jsonObject.toString());
+                uiContext.notifyMessageReceived();
+                processMessage(uiContext, jsonObject);
+            } catch (final Throwable e) {
+                log.error("Cannot process message from terminal  #" + uiContext.getID() + " : " + jsonObject, e);
+            } finally {
+                if (monitored) monitor.onMessageProcessed(WebSocket.this);
+            }
+        } else {
+            if (log.isInfoEnabled()) log.info("UI Context is destroyed, message dropped from terminal : {} bytes", len);
+        }
+    }
+
+    private void processMessage(final UIContext uiContext, final JsonObject jsonObject) throws Exception {
+        if (jsonObject.containsKey(ClientToServerModel.PING_SERVER.toStringValue())) {
+            final long start = jsonObject.getJsonNumber(ClientToServerModel.PING_SERVER.toStringValue()).longValue();
+            final long end = System.currentTimeMillis();
+            if (log.isDebugEnabled())
+                log.debug("Ping measurement : {} ms from terminal #{}", end - start, uiContext.getID());
+            uiContext.addPingValue(end - start);
+        } else if (jsonObject.containsKey(ClientToServerModel.APPLICATION_INSTRUCTIONS.toStringValue())) {
+            final Application applicationSession = context.getApplication();
+            if (applicationSession == null)
+                throw new Exception("Invalid session, please reload your application (" + uiContext + ")");
+            final String applicationInstructions = ClientToServerModel.APPLICATION_INSTRUCTIONS.toStringValue();
+            uiContext.execute(() -> {
+                final JsonArray appInstructions = jsonObject.getJsonArray(applicationInstructions);
+                for (int i = 0; i < appInstructions.size(); i++) {
+                    uiContext.fireClientData(appInstructions.getJsonObject(i));
+                }
+            });
+        } else if (jsonObject.containsKey(ClientToServerModel.INFO_MSG.toStringValue())) {
+            if (log.isInfoEnabled()) log.info("Message from terminal #{} : {}", uiContext.getID(),
+                jsonObject.getJsonString(ClientToServerModel.INFO_MSG.toStringValue()));
+        } else if (jsonObject.containsKey(ClientToServerModel.ERROR_MSG.toStringValue())) {
+            log.error("Message from terminal #{} : {}", uiContext.getID(),
+                jsonObject.getJsonString(ClientToServerModel.ERROR_MSG.toStringValue()));
+        } else {
+            log.error("Unknow message from terminal #{} : {}", uiContext.getID(), jsonObject);
+        }
     }
 
     public String getHistoryToken() {
-        final List<String> historyTokens = this.request.getParameterMap().get(ClientToServerModel.TYPE_HISTORY.toStringValue());
-        return !historyTokens.isEmpty() ? historyTokens.get(0) : null;
+        return getParameter(ClientToServerModel.TYPE_HISTORY);
+    }
+
+    private String getParameter(final ClientToServerModel model) {
+        final List<String> values = this.request.getParameterMap().get(model.toStringValue());
+        return values != null && !values.isEmpty() ? values.get(0) : null;
     }
 
     /**
@@ -209,21 +277,123 @@ public class WebSocket implements WebSocketListener, WebsocketEncoder {
      */
     public void sendRoundTrip() {
         if (isLiving() && isSessionOpen()) {
-            beginObject();
-            encode(ServerToClientModel.PING_SERVER, System.currentTimeMillis());
-            endObject();
+            roundTripRequested = false;
+            encodeRoundTrip();
             flush();
         }
     }
 
+    /**
+     * Requests a round trip that is added to the next frame sent to the client
+     */
+    public void requestRoundTrip() {
+        roundTripRequested = true;
+    }
+
+    private void encodeRoundTrip() {
+        beginObject();
+        encode(ServerToClientModel.PING_SERVER, System.currentTimeMillis());
+        endObject();
+    }
+
+    /**
+     * Writes the block of a broadcast, it is not encoded again for this terminal
+     */
+    public void writeBroadcast(final Broadcast broadcast) {
+        if (!isLiving() || !isSessionOpen()) return;
+        if (pendingBroadcasts.isEmpty() && !isCongested()) {
+            websocketPusher.append(broadcast);
+        } else if (pendingBroadcasts.size() < MAX_PENDING_BROADCASTS) {
+            // The terminal doesn't read fast enough, the broadcast is kept until the buffer drains
+            broadcast.retain(1);
+            pendingBroadcasts.add(broadcast);
+        } else {
+            // The broadcast can't be dropped silently, the terminal can't be kept in sync anymore
+            log.warn("UIContext #{} has been congested for too long, closing it", context.getUIContext().getID());
+            releasePendingBroadcasts();
+            context.getUIContext().destroy();
+        }
+    }
+
+    private void appendPendingBroadcasts() {
+        int count = 0;
+        while (count < pendingBroadcasts.size() && !isCongested()) {
+            final Broadcast broadcast = pendingBroadcasts.get(count++);
+            try {
+                websocketPusher.append(broadcast);
+            } finally {
+                broadcast.release();
+            }
+        }
+        pendingBroadcasts.subList(0, count).clear();
+        if (!pendingBroadcasts.isEmpty()) {
+            // Congested again, the commit of an empty transaction appends the next ones
+            final UIContext uiContext = context.getUIContext();
+            onDrained(() -> {
+                if (uiContext.isLiving()) uiContext.execute(() -> {
+                });
+            });
+        }
+    }
+
+    private void releasePendingBroadcasts() {
+        pendingBroadcasts.forEach(Broadcast::release);
+        pendingBroadcasts.clear();
+    }
+
     @Override
     public void flush() {
-        if (isLiving() && isSessionOpen()) websocketPusher.flush();
+        if (isLiving() && isSessionOpen()) {
+            if (!pendingBroadcasts.isEmpty() && !isCongested()) appendPendingBroadcasts();
+            if (roundTripRequested) {
+                roundTripRequested = false;
+                encodeRoundTrip();
+            }
+            websocketPusher.flush();
+        }
+    }
+
+    /**
+     * @return the protocol version negotiated with the terminal
+     */
+    public ProtocolVersion getProtocolVersion() {
+        return websocketPusher.getProtocolVersion();
+    }
+
+    /**
+     * @return true if the terminal doesn't read fast enough and the buffer is almost full
+     */
+    public boolean isCongested() {
+        return websocketPusher.shouldOnlyWriteUrgentMessages();
+    }
+
+    /**
+     * @param callback
+     *            called once, from another thread, when the buffer is no more congested
+     */
+    public void onDrained(final Runnable callback) {
+        websocketPusher.onDrained(callback);
+    }
+
+    /**
+     * @return the number of frames sent per second over the last seconds
+     */
+    public double getFramesPerSecond() {
+        return websocketPusher.getFramesPerSecond();
+    }
+
+    /**
+     * @return the average size in bytes of the frames sent since the connection
+     */
+    public double getMeanFrameSize() {
+        return websocketPusher.getMeanFrameSize();
     }
 
     public void close() {
         if (isSessionOpen()) {
             if (log.isInfoEnabled()) log.info("Closing websocket programaticly");
+            // The data waiting for a deferred flush are sent before the close frame
+            websocketPusher.flushPending();
             session.close();
         }
     }
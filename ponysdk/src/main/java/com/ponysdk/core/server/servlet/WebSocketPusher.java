@@ -24,8 +24,12 @@
 package com.ponysdk.core.server.servlet;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.json.JsonObject;
 
@@ -34,9 +38,12 @@ import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.model.ServerToClientModel;
+import com.ponysdk.core.model.ValueTypeModel;
 import com.ponysdk.core.server.application.UIContext;
 import com.ponysdk.core.server.concurrent.AutoFlushedBuffer;
+import com.ponysdk.core.server.concurrent.DirectBufferPool;
 
 public class WebSocketPusher extends AutoFlushedBuffer implements WriteCallback {
 
@@ -45,30 +52,201 @@ public class WebSocketPusher extends AutoFlushedBuffer implements WriteCallback
     private static final byte TRUE = 1;
     private static final byte FALSE = 0;
 
-    private static final String ENCODING_CHARSET = "UTF-8";
+    private static final double FRAME_RATE_WINDOW = TimeUnit.SECONDS.toNanos(5);
+
+    private static final int MAX_THREAD_FLUSHER = Integer
+        .parseInt(System.getProperty("websocket.flusher.thread.count", String.valueOf(Runtime.getRuntime().availableProcessors())));
+    private static final ScheduledThreadPoolExecutor flushTimer = new ScheduledThreadPoolExecutor(MAX_THREAD_FLUSHER,
+        new ThreadFactory() {
+
+            private int i = 0;
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r);
+                t.setName(WebSocketPusher.class.getName() + "-" + i++);
+                t.setDaemon(true);
+                return t;
+            }
+        });
 
     private final Session session;
 
+    private UIContext uiContext;
+    private FlushMode flushMode = FlushMode.IMMEDIATE;
+    private long flushWindow;
+    private int flushSizeThreshold;
+    // Only accessed with the UIContext lock
+    private boolean flushScheduled;
+
+    private final AtomicReference<Runnable> drainCallback = new AtomicReference<>();
+
+    private final LongAdder frameCount = new LongAdder();
+    private final LongAdder frameBytes = new LongAdder();
+    // Exponentially weighted frame rate, each frame adds 1 / FRAME_RATE_WINDOW that decays with the time
+    private final Object frameRateLock = new Object();
+    private double frameRate;
+    private long frameRateTime = System.nanoTime();
+
+    private ProtocolVersion protocolVersion = ProtocolVersion.LEGACY;
+
+    private StringDictionary stringDictionary;
+    // Blocks addressed to a window or a frame are forwarded as is to another terminal that doesn't share the dictionary
+    private boolean blockStart = true;
+    private boolean mainTerminalBlock;
+
     public WebSocketPusher(final Session session, final int bufferSize, final int maxChunkSize, final long timeoutMillis) {
         super(bufferSize, true, maxChunkSize, 0.25f, timeoutMillis);
         this.session = session;
     }
 
+    /**
+     * Creates a pusher whose buffer is taken from the shared {@link DirectBufferPool} and grows
+     * on demand
+     */
+    public WebSocketPusher(final Session session, final int initialBufferSize, final int maxBufferSize, final int maxChunkSize,
+            final long timeoutMillis) {
+        super(initialBufferSize, maxBufferSize, DirectBufferPool.get(), maxChunkSize, 0.25f, timeoutMillis);
+        this.session = session;
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(final ProtocolVersion protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Enables the string dictionary if the negotiated protocol version supports it
+     *
+     * @param maxSize
+     *            the maximum number of entries, 0 to disable the dictionary
+     */
+    public void setStringDictionarySize(final int maxSize) {
+        if (maxSize > 0 && protocolVersion.isSupporting(ProtocolVersion.STRING_DICTIONARY))
+            stringDictionary = new StringDictionary(maxSize);
+        else stringDictionary = null;
+    }
+
+    /**
+     * @param uiContext
+     *            the context whose lock protects the writes, the deferred flushes are done with it
+     *            and it is destroyed when the websocket can't be written
+     */
+    public void setUIContext(final UIContext uiContext) {
+        this.uiContext = uiContext;
+    }
+
+    /**
+     * @param flushWindow
+     *            maximum delay in milliseconds of a deferred flush
+     * @param flushSizeThreshold
+     *            pending size that triggers an immediate flush with {@link FlushMode#SIZE_THRESHOLD}
+     */
+    public void setFlushPolicy(final FlushMode flushMode, final long flushWindow, final int flushSizeThreshold) {
+        this.flushMode = flushMode;
+        this.flushWindow = flushWindow;
+        this.flushSizeThreshold = flushSizeThreshold;
+    }
+
+    /**
+     * Flush the pending data according to the flush mode, it can only mark them to be flushed
+     * later
+     */
     @Override
     public void flush() {
+        switch (flushMode) {
+            case TIME_WINDOW:
+                scheduleFlush();
+                break;
+            case SIZE_THRESHOLD:
+                if (getUnflushedSize() >= flushSizeThreshold) flushNow();
+                else scheduleFlush();
+                break;
+            case IMMEDIATE:
+            default:
+                flushNow();
+                break;
+        }
+    }
+
+    /**
+     * Flushes the pending data now whatever the flush mode, so they are sent before the websocket
+     * closes
+     */
+    void flushPending() {
+        if (!isClosed()) flushNow();
+    }
+
+    private void flushNow() {
         try {
             super.flush();
         } catch (final IOException e) {
             log.error("Can't write on the websocket, so we destroy the application", e);
-            UIContext.get().destroy();
+            destroyUIContext();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        flushTimer.schedule(this::deferredFlush, flushWindow, TimeUnit.MILLISECONDS);
+    }
+
+    private void deferredFlush() {
+        uiContext.begin();
+        try {
+            flushScheduled = false;
+            // Also when the context is destroyed, its last instructions are still pending
+            if (!isClosed()) flushNow();
+        } catch (final Throwable e) {
+            log.error("Cannot flush the websocket of UIContext #" + uiContext.getID(), e);
+        } finally {
+            uiContext.end();
         }
     }
 
     @Override
     protected void doFlush(final ByteBuffer bufferToFlush) {
+        synchronized (frameRateLock) {
+            frameRate = decayedFrameRate(System.nanoTime()) + TimeUnit.SECONDS.toNanos(1) / FRAME_RATE_WINDOW;
+        }
+        frameCount.increment();
+        frameBytes.add(bufferToFlush.remaining());
         session.getRemote().sendBytes(bufferToFlush, this);
     }
 
+    public long getFrameCount() {
+        return frameCount.sum();
+    }
+
+    /**
+     * @return the number of frames sent per second, averaged over the last seconds : the weight of a
+     *         frame decays exponentially with a 5 seconds time constant
+     */
+    public double getFramesPerSecond() {
+        synchronized (frameRateLock) {
+            return decayedFrameRate(System.nanoTime());
+        }
+    }
+
+    private double decayedFrameRate(final long now) {
+        final double rate = frameRate * Math.exp((frameRateTime - now) / FRAME_RATE_WINDOW);
+        frameRate = rate;
+        frameRateTime = now;
+        return rate;
+    }
+
+    /**
+     * @return the average size in bytes of the frames sent
+     */
+    public double getMeanFrameSize() {
+        final long frames = frameCount.sum();
+        return frames > 0 ? (double) frameBytes.sum() / frames : 0;
+    }
+
     @Override
     protected void closeFlusher() {
         session.close();
@@ -88,10 +266,54 @@ public class WebSocketPusher extends AutoFlushedBuffer implements WriteCallback
     @Override
     public void writeSuccess() {
         onFlushCompletion();
+        if (drainCallback.get() != null && !shouldOnlyWriteUrgentMessages()) fireDrained();
+    }
+
+    /**
+     * @param callback
+     *            called once on a timer thread when the buffer is no more congested, it replaces
+     *            the previous callback if it was not called yet
+     */
+    public void onDrained(final Runnable callback) {
+        drainCallback.set(callback);
+        // The buffer can have been drained before the registration
+        if (!shouldOnlyWriteUrgentMessages()) fireDrained();
+    }
+
+    private void fireDrained() {
+        // Not called on the flushing thread, the callback can wait for the writer that can wait for this thread
+        final Runnable callback = drainCallback.getAndSet(null);
+        if (callback != null) flushTimer.execute(callback);
+    }
+
+    /**
+     * Appends the block of a broadcast, as encoded for the protocol version of this pusher
+     */
+    void append(final Broadcast broadcast) {
+        try {
+            put(broadcast.getSegment(protocolVersion));
+        } catch (final IOException e) {
+            log.error("Can't write on the websocket, so we destroy the application", e);
+            destroyUIContext();
+        }
+    }
+
+    /**
+     * Destroys the context of this pusher rather than the current one, the broadcasts and the
+     * deferred flushes are not written from a thread where it is set
+     */
+    private void destroyUIContext() {
+        if (uiContext != null && uiContext.isLiving()) uiContext.destroy();
     }
 
     protected void encode(final ServerToClientModel model, final Object value) {
         if (log.isDebugEnabled()) log.debug("Writing in the buffer : " + model + " => " + value);
+        if (ServerToClientModel.END == model) {
+            blockStart = true;
+        } else if (blockStart) {
+            blockStart = false;
+            mainTerminalBlock = ServerToClientModel.WINDOW_ID != model && ServerToClientModel.FRAME_ID != model;
+        }
         try {
             switch (model.getTypeModel()) {
                 case NULL:
@@ -121,17 +343,34 @@ public class WebSocketPusher extends AutoFlushedBuffer implements WriteCallback
                 case JSON_OBJECT:
                     write(model, (JsonObject) value);
                     break;
+                case INTEGER_ARRAY:
+                    write(model, (int[]) value);
+                    break;
                 default:
                     break;
             }
         } catch (final IOException e) {
             log.error("Can't write on the websocket, so we destroy the application", e);
-            UIContext.get().destroy();
+            destroyUIContext();
+        }
+    }
+
+    private void putKey(final ServerToClientModel model) throws IOException {
+        if (protocolVersion.isSupporting(ProtocolVersion.COMPACT_ENCODING)) {
+            final short key = model.getValue();
+            if (key < (ServerToClientModel.COMPACT_KEY_ESCAPE & 0xFF)) {
+                put((byte) key);
+            } else {
+                put(ServerToClientModel.COMPACT_KEY_ESCAPE);
+                putShort(key);
+            }
+        } else {
+            putShort(model.getValue());
         }
     }
 
     private void write(final ServerToClientModel model) throws IOException {
-        putShort(model.getValue());
+        putKey(model);
     }
 
     private void write(final ServerToClientModel model, final boolean value) throws IOException {
@@ -139,26 +378,56 @@ public class WebSocketPusher extends AutoFlushedBuffer implements WriteCallback
     }
 
     private void write(final ServerToClientModel model, final byte value) throws IOException {
-        putShort(model.getValue());
+        putKey(model);
         put(value);
     }
 
     private void write(final ServerToClientModel model, final short value) throws IOException {
-        putShort(model.getValue());
+        putKey(model);
         putShort(value);
     }
 
     private void write(final ServerToClientModel model, final int value) throws IOException {
-        putShort(model.getValue());
-        putInt(value);
+        putKey(model);
+        if (protocolVersion.isSupporting(ProtocolVersion.COMPACT_ENCODING)) putVarInt(value);
+        else putInt(value);
     }
 
     private void write(final ServerToClientModel model, final long value) throws IOException {
-        write(model, String.valueOf(value));
+        if (protocolVersion.isSupporting(ProtocolVersion.BINARY_NUMBERS)) {
+            putKey(model);
+            putLong(value);
+        } else {
+            write(model, String.valueOf(value));
+        }
     }
 
     private void write(final ServerToClientModel model, final double value) throws IOException {
-        write(model, String.valueOf(value));
+        if (protocolVersion.isSupporting(ProtocolVersion.BINARY_NUMBERS)) {
+            putKey(model);
+            putDouble(value);
+        } else {
+            write(model, String.valueOf(value));
+        }
+    }
+
+    private void write(final ServerToClientModel model, final int[] values) throws IOException {
+        putKey(model);
+        if (protocolVersion.isSupporting(ProtocolVersion.COMPACT_ENCODING)) {
+            putVarInt(values.length);
+            // Sorted IDs give deltas of one or two bytes
+            int previous = 0;
+            for (final int value : values) {
+                final int delta = value - previous;
+                putVarInt(delta << 1 ^ delta >> 31);
+                previous = value;
+            }
+        } else {
+            putInt(values.length);
+            for (final int value : values) {
+                putInt(value);
+            }
+        }
     }
 
     private void write(final ServerToClientModel model, final JsonObject jsonObject) throws IOException {
@@ -166,18 +435,24 @@ public class WebSocketPusher extends AutoFlushedBuffer implements WriteCallback
     }
 
     private void write(final ServerToClientModel model, final String value) throws IOException {
-        putShort(model.getValue());
+        putKey(model);
 
-        try {
-            if (value != null) {
-                final byte[] bytes = value.getBytes(ENCODING_CHARSET);
-                putInt(bytes.length);
-                put(bytes);
+        if (value == null) {
+            putInt(0);
+        } else if (stringDictionary != null && mainTerminalBlock && stringDictionary.accept(model, value)) {
+            final int id = stringDictionary.get(value);
+            if (id != -1) {
+                put(ValueTypeModel.STRING_REFERENCE);
+                putVarInt(id);
             } else {
-                putInt(0);
+                put(ValueTypeModel.STRING_DEFINITION);
+                putVarInt(stringDictionary.put(value));
+                putInt(utf8Length(value));
+                putString(value);
             }
-        } catch (final UnsupportedEncodingException e) {
-            log.error("Cannot convert string");
+        } else {
+            putInt(utf8Length(value));
+            putString(value);
         }
     }
 
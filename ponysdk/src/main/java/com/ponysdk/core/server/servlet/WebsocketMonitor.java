@@ -25,6 +25,14 @@ package com.ponysdk.core.server.servlet;
 
 public interface WebsocketMonitor {
 
+    /**
+     * @return false to skip the monitoring of the received messages, the binary frames are then not
+     *         converted to a JSON text
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
     void onMessageReceived(WebSocket webSocket, String text);
 
     void onMessageProcessed(WebSocket webSocket);
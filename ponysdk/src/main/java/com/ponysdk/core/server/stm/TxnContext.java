@@ -23,13 +23,20 @@
 
 package com.ponysdk.core.server.stm;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.server.application.Application;
 import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.servlet.Broadcast;
 import com.ponysdk.core.server.servlet.WebSocket;
 import com.ponysdk.core.writer.ModelWriter;
 
 public class TxnContext implements TxnListener {
 
+    private static final Logger log = LoggerFactory.getLogger(TxnContext.class);
+
     private final WebSocket socket;
     private final ModelWriter modelWriter;
 
@@ -44,9 +51,44 @@ public class TxnContext implements TxnListener {
     }
 
     void flush() {
+        if (modelWriter.isOverflowed()) {
+            // The conflated updates have been dropped, the terminal can't be kept in sync anymore
+            if (uiContext.isLiving()) {
+                log.warn("UIContext #{} has been congested for too long, closing it", uiContext.getID());
+                uiContext.destroy();
+            }
+            return;
+        }
+        if (socket.isCongested()) {
+            // The terminal doesn't read fast enough, the updates are conflated until the buffer drains
+            if (!modelWriter.isConflating()) log.info("UIContext #{} is congested, conflating the updates", uiContext.getID());
+            modelWriter.setConflating(true);
+            socket.onDrained(this::onDrained);
+        } else {
+            modelWriter.setConflating(false);
+            modelWriter.flushUpdates();
+            // The garbage collected objects are released once per transaction, not while conflating
+            if (uiContext != null) uiContext.expungeStaleObjects();
+        }
         socket.flush();
     }
 
+    private void onDrained() {
+        if (!uiContext.isLiving()) return;
+        if (log.isInfoEnabled()) log.info("UIContext #{} is no more congested, sending the conflated updates", uiContext.getID());
+        // The commit of an empty transaction writes the conflated updates
+        uiContext.execute(() -> {
+        });
+    }
+
+    public boolean isCongested() {
+        return socket.isCongested();
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return socket.getProtocolVersion();
+    }
+
     @Override
     public void beforeFlush(final TxnContext txnContext) {
         if (!flushNow) return;
@@ -96,6 +138,17 @@ public class TxnContext implements TxnListener {
         socket.sendRoundTrip();
     }
 
+    public void requestRoundTrip() {
+        socket.requestRoundTrip();
+    }
+
+    public void writeBroadcast(final Broadcast broadcast) {
+        // The segment is appended as is, the buffered updates made before must be written first,
+        // unless they are conflated : the socket then keeps the broadcast until the buffer drains
+        if (!modelWriter.isConflating()) modelWriter.flushUpdates();
+        socket.writeBroadcast(broadcast);
+    }
+
     public void close() {
         socket.close();
     }
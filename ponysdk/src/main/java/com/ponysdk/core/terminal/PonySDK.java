@@ -37,6 +37,7 @@ import com.google.gwt.user.client.History;
 import com.google.gwt.user.client.Window;
 import com.ponysdk.core.model.ClientToServerModel;
 import com.ponysdk.core.model.MappingPath;
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.terminal.instruction.PTInstruction;
 import com.ponysdk.core.terminal.request.FrameRequestBuilder;
 import com.ponysdk.core.terminal.request.WindowRequestBuilder;
@@ -59,6 +60,7 @@ public class PonySDK implements UncaughtExceptionHandler {
     private final UIBuilder uiBuilder = new UIBuilder();
 
     private int contextId;
+    private ProtocolVersion protocolVersion = ProtocolVersion.LEGACY;
     private WebSocketClient socketClient;
     private boolean started;
 
@@ -93,7 +95,8 @@ public class PonySDK implements UncaughtExceptionHandler {
     private void startMainContext() {
         Window.addCloseHandler(event -> close());
         final String builder = GWT.getHostPageBaseURL().replaceFirst("http", "ws") + MappingPath.WEBSOCKET + "?"
-                + ClientToServerModel.TYPE_HISTORY.toStringValue() + "=" + History.getToken();
+                + ClientToServerModel.TYPE_HISTORY.toStringValue() + "=" + History.getToken() + "&"
+                + ClientToServerModel.PROTOCOL_VERSION.toStringValue() + "=" + ProtocolVersion.CURRENT.getValue();
         socketClient = new WebSocketClient(builder, uiBuilder, WebSocketDataType.ARRAYBUFFER);
     }
 
@@ -102,6 +105,7 @@ public class PonySDK implements UncaughtExceptionHandler {
         final String frameId = Window.Location.getParameter(ClientToServerModel.FRAME_ID.toStringValue());
 
         contextId = Integer.parseInt(Window.Location.getParameter(ClientToServerModel.UI_CONTEXT_ID.toStringValue()));
+        protocolVersion = ProtocolVersion.negotiate(Window.Location.getParameter(ClientToServerModel.PROTOCOL_VERSION.toStringValue()));
         uiBuilder.init(windowId != null ? new WindowRequestBuilder(windowId, buffer -> uiBuilder.updateWindowTerminal(buffer))
                 : new FrameRequestBuilder(frameId, buffer -> uiBuilder.updateFrameTerminal(buffer)));
     }
@@ -160,6 +164,14 @@ public class PonySDK implements UncaughtExceptionHandler {
         uiBuilder.registerJavascriptAddOnFactory(signature, javascriptAddOnFactory);
     }
 
+    /**
+     * @param listener
+     *            receives the data broadcast by the server on the channel
+     */
+    public void addBroadcastListener(final String channel, final BroadcastListener listener) {
+        uiBuilder.addBroadcastListener(channel, listener);
+    }
+
     public String getHostPageBaseURL() {
         return GWT.getHostPageBaseURL();
     }
@@ -183,4 +195,12 @@ public class PonySDK implements UncaughtExceptionHandler {
         this.contextId = contextId;
     }
 
+    public ProtocolVersion getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(final ProtocolVersion protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
 }
@@ -23,13 +23,15 @@
 
 package com.ponysdk.core.terminal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.dom.client.Element;
-import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.user.client.History;
@@ -38,11 +40,13 @@ import com.google.gwt.user.client.ui.UIObject;
 import com.google.gwt.user.client.ui.Widget;
 import com.ponysdk.core.model.ClientToServerModel;
 import com.ponysdk.core.model.HandlerModel;
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.model.WidgetType;
 import com.ponysdk.core.terminal.instruction.PTInstruction;
 import com.ponysdk.core.terminal.model.BinaryModel;
 import com.ponysdk.core.terminal.model.ReaderBuffer;
+import com.ponysdk.core.terminal.request.InstructionQueue;
 import com.ponysdk.core.terminal.request.RequestBuilder;
 import com.ponysdk.core.terminal.ui.PTCookies;
 import com.ponysdk.core.terminal.ui.PTFrame;
@@ -65,8 +69,10 @@ public class UIBuilder {
     private final Map<UIObject, Integer> objectIDByWidget = new HashMap<>();
     private final Map<Integer, UIObject> widgetIDByObjectID = new HashMap<>();
     private final Map<String, JavascriptAddOnFactory> javascriptAddOnFactories = new HashMap<>();
+    private final Map<String, List<BroadcastListener>> broadcastListeners = new HashMap<>();
 
     private RequestBuilder requestBuilder;
+    private InstructionQueue instructionQueue;
 
     private static class AvoidBlockException extends Exception {
     }
@@ -75,6 +81,7 @@ public class UIBuilder {
         if (log.isLoggable(Level.INFO)) log.info("Init request builder");
 
         this.requestBuilder = requestBuilder;
+        this.instructionQueue = new InstructionQueue(requestBuilder);
 
         PTHistory.addValueChangeHandler(this);
 
@@ -120,13 +127,31 @@ public class UIBuilder {
                 if (log.isLoggable(Level.FINE)) log.log(Level.FINE, "Ping received");
                 final PTInstruction requestData = new PTInstruction();
                 requestData.put(ClientToServerModel.PING_SERVER, binaryModel.getLongValue());
-                requestBuilder.send(requestData);
+                sendPriorityDataToServer(requestData);
                 buffer.readBinaryModel(); // Read ServerToClientModel.END element
             } else if (ServerToClientModel.HEARTBEAT.equals(model)) {
                 if (log.isLoggable(Level.FINE)) log.log(Level.FINE, "Heart beat received");
                 buffer.readBinaryModel(); // Read ServerToClientModel.END element
             } else if (ServerToClientModel.CREATE_CONTEXT.equals(model)) {
                 PonySDK.get().setContextId(binaryModel.getIntValue());
+                ProtocolVersion protocolVersion = null;
+                BinaryModel nextModel;
+                while (!ServerToClientModel.END.equals((nextModel = buffer.readBinaryModel()).getModel())) {
+                    if (ServerToClientModel.PROTOCOL_VERSION.equals(nextModel.getModel())) {
+                        protocolVersion = ProtocolVersion.fromValue(nextModel.getByteValue());
+                        if (log.isLoggable(Level.INFO)) log.info("Protocol version negotiated : " + protocolVersion);
+                    } else if (ServerToClientModel.TERMINAL_BATCH_WINDOW.equals(nextModel.getModel())) {
+                        instructionQueue.setBatchWindow(nextModel.getIntValue());
+                    }
+                }
+                if (protocolVersion != null) {
+                    // The next blocks are encoded with the negotiated version
+                    PonySDK.get().setProtocolVersion(protocolVersion);
+                    buffer.setProtocolVersion(protocolVersion);
+                }
+            } else if (ServerToClientModel.BROADCAST_CHANNEL.equals(model)) {
+                final JSONObject data = buffer.readBinaryModel().getJsonObject();
+                fireBroadcast(binaryModel.getStringValue(), data);
                 buffer.readBinaryModel(); // Read ServerToClientModel.END element
             } else if (ServerToClientModel.DESTROY_CONTEXT.equals(model)) {
                 destroy();
@@ -169,6 +194,8 @@ public class UIBuilder {
                 processAdd(buffer, binaryModel.getIntValue());
             } else if (ServerToClientModel.TYPE_GC.ordinal() == modelOrdinal) {
                 processGC(binaryModel.getIntValue());
+            } else if (ServerToClientModel.TYPE_GC_BATCH.ordinal() == modelOrdinal) {
+                processGC(binaryModel.getArrayValue());
             } else if (ServerToClientModel.TYPE_REMOVE.ordinal() == modelOrdinal) {
                 processRemove(buffer, binaryModel.getIntValue());
             } else if (ServerToClientModel.TYPE_ADD_HANDLER.ordinal() == modelOrdinal) {
@@ -307,6 +334,21 @@ public class UIBuilder {
         }
     }
 
+    /**
+     * Releases all the objects garbage collected on the server for this terminal in one pass, an
+     * unknown ID doesn't prevent the others from being released
+     */
+    private void processGC(final JsArrayInteger objectIDs) {
+        final int length = objectIDs.length();
+        int garbaged = 0;
+        for (int i = 0; i < length; i++) {
+            final PTObject ptObject = unregisterObject(objectIDs.get(i));
+            if (ptObject != null) ptObject.destroy();
+            else garbaged++;
+        }
+        if (garbaged > 0) log.warning("Cannot GC " + garbaged + " garbaged PTObjects out of " + length);
+    }
+
     private PTObject unregisterObject(final Integer objectID) {
         final PTObject ptObject = objectByID.remove(objectID);
         final UIObject uiObject = widgetIDByObjectID.remove(objectID);
@@ -330,30 +372,49 @@ public class UIBuilder {
     }
 
     public void sendDataToServer(final JSONValue instruction) {
+        // Keeps the order with the pending instructions
+        instructionQueue.flush();
         requestBuilder.send(instruction);
     }
 
     public void sendDataToServer(final JSONObject instruction) {
-        final PTInstruction requestData = new PTInstruction();
-        final JSONArray jsonArray = new JSONArray();
-        jsonArray.set(0, instruction);
-        requestData.put(ClientToServerModel.APPLICATION_INSTRUCTIONS, jsonArray);
+        instructionQueue.add(instruction);
+    }
 
-        if (log.isLoggable(Level.FINE)) log.log(Level.FINE, "Data to send " + requestData.toString());
+    /**
+     * Only the last instruction of the object for the handler is sent if several are raised before
+     * the pending instructions are sent
+     */
+    public void sendCoalescedDataToServer(final PTInstruction instruction, final ClientToServerModel handler) {
+        sendCoalescedDataToServer(instruction, handler.toStringValue());
+    }
 
-        requestBuilder.send(requestData);
+    /**
+     * @param handlerKey
+     *            identifies the handler among the ones of the object
+     */
+    public void sendCoalescedDataToServer(final PTInstruction instruction, final String handlerKey) {
+        instructionQueue.add(instruction.getObjectID() + handlerKey, instruction);
     }
 
     public void sendErrorMessageToServer(final String message) {
         final PTInstruction requestData = new PTInstruction();
         requestData.put(ClientToServerModel.ERROR_MSG, message);
-        requestBuilder.send(requestData);
+        sendPriorityDataToServer(requestData);
     }
 
     public void sendInfoMessageToServer(final String message) {
         final PTInstruction requestData = new PTInstruction();
         requestData.put(ClientToServerModel.INFO_MSG, message);
-        requestBuilder.send(requestData);
+        sendPriorityDataToServer(requestData);
+    }
+
+    /**
+     * Sends the instruction now, after the pending instructions so that it doesn't overtake them
+     */
+    private void sendPriorityDataToServer(final PTInstruction instruction) {
+        instructionQueue.flush();
+        requestBuilder.send(instruction);
     }
 
     public PTObject getPTObject(final Integer id) {
@@ -381,6 +442,25 @@ public class UIBuilder {
         return javascriptAddOnFactories;
     }
 
+    void addBroadcastListener(final String channel, final BroadcastListener listener) {
+        broadcastListeners.computeIfAbsent(channel, key -> new ArrayList<>()).add(listener);
+    }
+
+    private void fireBroadcast(final String channel, final JSONObject data) {
+        final List<BroadcastListener> listeners = broadcastListeners.get(channel);
+        if (listeners == null) {
+            if (log.isLoggable(Level.FINE)) log.fine("No listener on the broadcast channel " + channel);
+            return;
+        }
+        for (final BroadcastListener listener : listeners) {
+            try {
+                listener.onBroadcast(data.getJavaScriptObject());
+            } catch (final Throwable e) {
+                log.log(Level.SEVERE, "Error on the broadcast channel " + channel, e);
+            }
+        }
+    }
+
     void setReadyWindow(final int windowID) {
         final PTWindow window = PTWindowManager.getWindow(windowID);
         if (window != null) window.setReady();
@@ -23,6 +23,7 @@
 
 package com.ponysdk.core.terminal.model;
 
+import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.json.client.JSONObject;
 import com.ponysdk.core.model.ServerToClientModel;
 
@@ -39,6 +40,7 @@ public class BinaryModel {
     private double doubleValue;
     private String stringValue;
     private JSONObject jsonObject;
+    private JsArrayInteger arrayValue;
 
     protected BinaryModel() {
     }
@@ -83,6 +85,11 @@ public class BinaryModel {
         this.jsonObject = value;
     }
 
+    public void init(final ServerToClientModel key, final JsArrayInteger value, final int size) {
+        init(key, size);
+        this.arrayValue = value;
+    }
+
     public void init(final ServerToClientModel key, final int value) {
         this.model = key;
         this.size = value;
@@ -124,6 +131,10 @@ public class BinaryModel {
         return jsonObject;
     }
 
+    public JsArrayInteger getArrayValue() {
+        return arrayValue;
+    }
+
     public int getSize() {
         return size;
     }
@@ -150,6 +161,8 @@ public class BinaryModel {
                 return model + " => " + stringValue;
             case JSON_OBJECT:
                 return model + " => " + jsonObject;
+            case INTEGER_ARRAY:
+                return model + " => [" + arrayValue.join(",") + "]";
             default:
                 throw new IllegalArgumentException("No model type configured");
         }
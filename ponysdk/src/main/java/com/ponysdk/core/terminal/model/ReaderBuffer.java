@@ -25,9 +25,13 @@ package com.ponysdk.core.terminal.model;
 
 import java.util.logging.Logger;
 
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.json.client.JSONException;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONParser;
+import com.ponysdk.core.model.ProtocolVersion;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.model.ValueTypeModel;
 
@@ -54,10 +58,26 @@ public class ReaderBuffer {
 
     private Window window;
 
+    private boolean binaryNumbers;
+
+    private boolean compactEncoding;
+
+    private JsArrayString stringDictionary;
+
     public ReaderBuffer() {
         this.currentBinaryModel = new BinaryModel();
     }
 
+    public void setProtocolVersion(final ProtocolVersion protocolVersion) {
+        this.binaryNumbers = protocolVersion.isSupporting(ProtocolVersion.BINARY_NUMBERS);
+        this.compactEncoding = protocolVersion.isSupporting(ProtocolVersion.COMPACT_ENCODING);
+        if (protocolVersion.isSupporting(ProtocolVersion.STRING_DICTIONARY)) {
+            if (stringDictionary == null) stringDictionary = JavaScriptObject.createArray().cast();
+        } else {
+            stringDictionary = null;
+        }
+    }
+
     public void init(final Uint8Array buffer) {
         if (this.buffer != null && hasRemaining()) {
             if (this.window == null) this.window = Browser.getWindow();
@@ -77,13 +97,18 @@ public class ReaderBuffer {
 
     private static native String fromCharCode(ArrayBufferView buffer) /*-{return $wnd.decode(buffer);}-*/;
 
+    private static native double getFloat64(Uint8Array buffer, int position) /*-{
+        return new DataView(buffer.buffer, buffer.byteOffset + position, 8).getFloat64(0);
+    }-*/;
+
     public int getPosition() {
         return position;
     }
 
     public BinaryModel readBinaryModel() {
-        final ServerToClientModel key = SERVER_TO_CLIENT_MODELS[getShort()];
-        int size = ValueTypeModel.SHORT.getSize();
+        final int keyPosition = position;
+        final ServerToClientModel key = SERVER_TO_CLIENT_MODELS[getModelKey()];
+        int size = position - keyPosition;
 
         final ValueTypeModel typeModel = key.getTypeModel();
         switch (typeModel) {
@@ -104,30 +129,50 @@ public class ReaderBuffer {
                 currentBinaryModel.init(key, getShort(), size);
                 break;
             case INTEGER:
-                size += typeModel.getSize();
-                currentBinaryModel.init(key, getInt(), size);
+                if (compactEncoding) {
+                    final int valuePosition = position;
+                    final int value = getVarInt();
+                    size += position - valuePosition;
+                    currentBinaryModel.init(key, value, size);
+                } else {
+                    size += typeModel.getSize();
+                    currentBinaryModel.init(key, getInt(), size);
+                }
                 break;
             case LONG:
-                // TODO Read really a long
-                // return new BinaryModel(key, getLong(), size);
-                size += ValueTypeModel.INTEGER.getSize();
-                final int messageLongSize = getInt();
-                size += messageLongSize;
-                currentBinaryModel.init(key, Long.parseLong(getString(messageLongSize)), size);
+                if (binaryNumbers) {
+                    size += typeModel.getSize();
+                    currentBinaryModel.init(key, getLong(), size);
+                } else {
+                    size += ValueTypeModel.INTEGER.getSize();
+                    final int messageLongSize = getInt();
+                    size += messageLongSize;
+                    currentBinaryModel.init(key, Long.parseLong(getString(messageLongSize)), size);
+                }
                 break;
             case DOUBLE:
-                // TODO Read really a double
-                // return new BinaryModel(key, getDouble(), size);
-                size += ValueTypeModel.INTEGER.getSize();
-                final int messageDoubleSize = getInt();
-                size += messageDoubleSize;
-                currentBinaryModel.init(key, Double.parseDouble(getString(messageDoubleSize)), size);
+                if (binaryNumbers) {
+                    size += typeModel.getSize();
+                    currentBinaryModel.init(key, getDouble(), size);
+                } else {
+                    size += ValueTypeModel.INTEGER.getSize();
+                    final int messageDoubleSize = getInt();
+                    size += messageDoubleSize;
+                    currentBinaryModel.init(key, Double.parseDouble(getString(messageDoubleSize)), size);
+                }
                 break;
             case STRING:
-                size += ValueTypeModel.INTEGER.getSize();
-                final int messageSize = getInt();
-                size += messageSize;
-                currentBinaryModel.init(key, getString(messageSize), size);
+                if (stringDictionary != null) {
+                    final int valuePosition = position;
+                    final String value = getDictionaryString(true);
+                    size += position - valuePosition;
+                    currentBinaryModel.init(key, value, size);
+                } else {
+                    size += ValueTypeModel.INTEGER.getSize();
+                    final int messageSize = getInt();
+                    size += messageSize;
+                    currentBinaryModel.init(key, getString(messageSize), size);
+                }
                 break;
             case JSON_OBJECT:
                 size += ValueTypeModel.INTEGER.getSize();
@@ -135,6 +180,12 @@ public class ReaderBuffer {
                 size += jsonSize;
                 currentBinaryModel.init(key, getJson(jsonSize), size);
                 break;
+            case INTEGER_ARRAY:
+                final int arrayPosition = position;
+                final JsArrayInteger array = getIntArray();
+                size += position - arrayPosition;
+                currentBinaryModel.init(key, array, size);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown type model : " + typeModel);
         }
@@ -181,6 +232,20 @@ public class ReaderBuffer {
         }
     }
 
+    /**
+     * With the compact encoding, a key is one unsigned byte, or an escape byte followed by a short
+     * for the ordinals that don't fit
+     */
+    private short getModelKey() {
+        if (compactEncoding) {
+            if (!hasEnoughRemainingBytes(1)) throw new ArrayIndexOutOfBoundsException();
+            final int key = buffer.intAt(position++);
+            return key == (ServerToClientModel.COMPACT_KEY_ESCAPE & 0xFF) ? getShort() : (short) key;
+        } else {
+            return getShort();
+        }
+    }
+
     private int getInt() {
         final int size = ValueTypeModel.INTEGER.getSize();
         if (hasEnoughRemainingBytes(size)) {
@@ -198,6 +263,104 @@ public class ReaderBuffer {
         }
     }
 
+    private int getVarInt() {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (!hasEnoughRemainingBytes(1)) throw new ArrayIndexOutOfBoundsException();
+            b = buffer.intAt(position++);
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    /**
+     * Read a STRING value that can be a dictionary definition, a dictionary reference or a plain
+     * string. Definitions are always registered, even if the value is not decoded, otherwise the
+     * next references would be unknown.
+     *
+     * @param decode
+     *            If false, only move to the end of the value and return null
+     */
+    private String getDictionaryString(final boolean decode) {
+        if (!hasEnoughRemainingBytes(1)) throw new ArrayIndexOutOfBoundsException();
+        final int tag = buffer.intAt(position);
+        if (tag == (ValueTypeModel.STRING_REFERENCE & 0xFF)) {
+            position++;
+            final int id = getVarInt();
+            return decode ? stringDictionary.get(id) : null;
+        } else if (tag == (ValueTypeModel.STRING_DEFINITION & 0xFF)) {
+            position++;
+            final int id = getVarInt();
+            final String value = getString(getInt());
+            stringDictionary.set(id, value);
+            return value;
+        } else {
+            final int messageSize = getInt();
+            if (decode) return getString(messageSize);
+            position += messageSize;
+            return null;
+        }
+    }
+
+    private void skipDictionaryString() {
+        if (!hasEnoughRemainingBytes(1)) throw new ArrayIndexOutOfBoundsException();
+        final int tag = buffer.intAt(position);
+        if (tag == (ValueTypeModel.STRING_REFERENCE & 0xFF)) {
+            position++;
+            getVarInt();
+        } else if (tag == (ValueTypeModel.STRING_DEFINITION & 0xFF)) {
+            position++;
+            getVarInt();
+            position += getInt();
+        } else {
+            position += getInt();
+        }
+    }
+
+    private JsArrayInteger getIntArray() {
+        final JsArrayInteger array = JavaScriptObject.createArray().cast();
+        if (compactEncoding) {
+            final int length = getVarInt();
+            int value = 0;
+            for (int i = 0; i < length; i++) {
+                final int zigzag = getVarInt();
+                value += zigzag >>> 1 ^ -(zigzag & 1);
+                array.push(value);
+            }
+        } else {
+            final int length = getInt();
+            for (int i = 0; i < length; i++) {
+                array.push(getInt());
+            }
+        }
+        return array;
+    }
+
+    private long getLong() {
+        final int size = ValueTypeModel.LONG.getSize();
+        if (hasEnoughRemainingBytes(size)) {
+            final long high = getInt();
+            final long low = getInt() & 0xFFFFFFFFL;
+            return high << 32 | low;
+        } else {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+    }
+
+    private double getDouble() {
+        final int size = ValueTypeModel.DOUBLE.getSize();
+        if (hasEnoughRemainingBytes(size)) {
+            final double result = getFloat64(buffer, position);
+            position += size;
+            return result;
+        } else {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+    }
+
     private JSONObject getJson(final int msgSize) {
         final String s = getString(msgSize);
         try {
@@ -245,7 +408,7 @@ public class ReaderBuffer {
         int endPosition = -1;
         while (hasRemaining()) {
             try {
-                if (ServerToClientModel.END.equals(shiftBinaryModel())) {
+                if (ServerToClientModel.END.equals(shiftBinaryModel(!dryRun))) {
                     endPosition = position;
                     break;
                 }
@@ -262,8 +425,12 @@ public class ReaderBuffer {
         return endPosition;
     }
 
-    private final ServerToClientModel shiftBinaryModel() {
-        final ServerToClientModel key = SERVER_TO_CLIENT_MODELS[getShort()];
+    /**
+     * @param register
+     *            If true, the string dictionary definitions are registered
+     */
+    private final ServerToClientModel shiftBinaryModel(final boolean register) {
+        final ServerToClientModel key = SERVER_TO_CLIENT_MODELS[getModelKey()];
 
         final ValueTypeModel typeModel = key.getTypeModel();
         switch (typeModel) {
@@ -272,16 +439,35 @@ public class ReaderBuffer {
             case BOOLEAN:
             case BYTE:
             case SHORT:
-            case INTEGER:
                 position += typeModel.getSize();
                 break;
+            case INTEGER:
+                if (compactEncoding) getVarInt();
+                else position += typeModel.getSize();
+                break;
             case LONG:
             case DOUBLE:
+                if (binaryNumbers) position += typeModel.getSize();
+                else position += getInt();
+                break;
             case STRING:
+                if (stringDictionary == null) position += getInt();
+                else if (register) getDictionaryString(false);
+                else skipDictionaryString();
+                break;
             case JSON_OBJECT:
                 final int jsonSize = getInt();
                 position += jsonSize;
                 break;
+            case INTEGER_ARRAY:
+                if (compactEncoding) {
+                    for (int i = getVarInt(); i > 0; i--) {
+                        getVarInt();
+                    }
+                } else {
+                    position += getInt() * ValueTypeModel.INTEGER.getSize();
+                }
+                break;
             default:
                 throw new IllegalArgumentException("Unknown type model : " + typeModel);
         }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.terminal.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONBoolean;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.json.client.JSONValue;
+import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.model.ClientValueTypeModel;
+
+import elemental.client.Browser;
+import elemental.html.ArrayBuffer;
+import elemental.html.Uint8Array;
+
+/**
+ * Encodes the instructions sent to the server with the
+ * {@link com.ponysdk.core.model.ProtocolVersion#BINARY_CLIENT_DATA} version, see
+ * {@link ClientValueTypeModel}
+ */
+public class WriterBuffer {
+
+    private static final Map<String, ClientToServerModel> CLIENT_TO_SERVER_MODELS = new HashMap<>();
+
+    static {
+        for (final ClientToServerModel model : ClientToServerModel.values()) {
+            CLIENT_TO_SERVER_MODELS.put(model.toStringValue(), model);
+        }
+    }
+
+    private Uint8Array buffer = Browser.getWindow().newUint8Array(256);
+
+    private int position;
+
+    private static native void setFloat64(Uint8Array buffer, int position, double value) /*-{
+        new DataView(buffer.buffer, buffer.byteOffset + position, 8).setFloat64(0, value);
+    }-*/;
+
+    private static native void setAt(Uint8Array buffer, int position, int value) /*-{
+        buffer[position] = value;
+    }-*/;
+
+    /**
+     * @return a copy of the encoded frame, null if a key of the object is not a
+     *         {@link ClientToServerModel}
+     */
+    public ArrayBuffer encode(final JSONObject jsonObject) {
+        if (!isModelObject(jsonObject)) return null;
+        position = 0;
+        putObject(jsonObject);
+        return buffer.getBuffer().slice(0, position);
+    }
+
+    /**
+     * @return true if all the keys of the object are {@link ClientToServerModel}
+     */
+    private static boolean isModelObject(final JSONObject jsonObject) {
+        for (final String key : jsonObject.keySet()) {
+            if (!CLIENT_TO_SERVER_MODELS.containsKey(key)) return false;
+        }
+        return true;
+    }
+
+    private void putObject(final JSONObject jsonObject) {
+        putVarInt(jsonObject.size());
+        for (final String key : jsonObject.keySet()) {
+            put(CLIENT_TO_SERVER_MODELS.get(key).ordinal());
+            putValue(jsonObject.get(key));
+        }
+    }
+
+    private void putValue(final JSONValue value) {
+        final JSONNumber number;
+        final JSONString string;
+        final JSONBoolean bool;
+        final JSONObject object;
+        final JSONArray array;
+        if (value == null || value.isNull() != null) {
+            put(ClientValueTypeModel.NULL.getValue());
+        } else if ((bool = value.isBoolean()) != null) {
+            put(bool.booleanValue() ? ClientValueTypeModel.TRUE.getValue() : ClientValueTypeModel.FALSE.getValue());
+        } else if ((number = value.isNumber()) != null) {
+            final double doubleValue = number.doubleValue();
+            final int intValue = (int) doubleValue;
+            if (intValue == doubleValue) {
+                put(ClientValueTypeModel.INTEGER.getValue());
+                putVarInt(intValue << 1 ^ intValue >> 31);
+            } else {
+                put(ClientValueTypeModel.DOUBLE.getValue());
+                ensureCapacity(8);
+                setFloat64(buffer, position, doubleValue);
+                position += 8;
+            }
+        } else if ((string = value.isString()) != null) {
+            put(ClientValueTypeModel.STRING.getValue());
+            putString(string.stringValue());
+        } else if ((object = value.isObject()) != null) {
+            if (isModelObject(object)) {
+                put(ClientValueTypeModel.OBJECT.getValue());
+                putObject(object);
+            } else {
+                put(ClientValueTypeModel.JSON.getValue());
+                putString(object.toString());
+            }
+        } else if ((array = value.isArray()) != null) {
+            put(ClientValueTypeModel.ARRAY.getValue());
+            putVarInt(array.size());
+            for (int i = 0; i < array.size(); i++) {
+                putValue(array.get(i));
+            }
+        } else {
+            put(ClientValueTypeModel.JSON.getValue());
+            putString(value.toString());
+        }
+    }
+
+    private void putString(final String value) {
+        final int length = value.length();
+        int utf8Length = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) utf8Length++;
+            else if (c < 0x800) utf8Length += 2;
+            else if (c < 0xD800 || c > 0xDFFF) utf8Length += 3;
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8Length += 4;
+                i++;
+            } else utf8Length++;
+        }
+
+        putVarInt(utf8Length);
+        ensureCapacity(utf8Length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                setAt(buffer, position++, c);
+            } else if (c < 0x800) {
+                setAt(buffer, position++, 0xC0 | c >> 6);
+                setAt(buffer, position++, 0x80 | c & 0x3F);
+            } else if (c < 0xD800 || c > 0xDFFF) {
+                setAt(buffer, position++, 0xE0 | c >> 12);
+                setAt(buffer, position++, 0x80 | c >> 6 & 0x3F);
+                setAt(buffer, position++, 0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                setAt(buffer, position++, 0xF0 | codePoint >> 18);
+                setAt(buffer, position++, 0x80 | codePoint >> 12 & 0x3F);
+                setAt(buffer, position++, 0x80 | codePoint >> 6 & 0x3F);
+                setAt(buffer, position++, 0x80 | codePoint & 0x3F);
+            } else {
+                // Unpaired surrogates are replaced like the server does
+                setAt(buffer, position++, '?');
+            }
+        }
+    }
+
+    private void putVarInt(final int value) {
+        ensureCapacity(5);
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            setAt(buffer, position++, v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        setAt(buffer, position++, v);
+    }
+
+    private void put(final int value) {
+        ensureCapacity(1);
+        setAt(buffer, position++, value & 0xFF);
+    }
+
+    private void ensureCapacity(final int length) {
+        if (position + length > buffer.getLength()) {
+            final Uint8Array newBuffer = Browser.getWindow().newUint8Array(Math.max(buffer.getLength() << 1, position + length));
+            newBuffer.setElements(buffer.subarray(0, position));
+            buffer = newBuffer;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.terminal.request;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.user.client.Timer;
+import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.terminal.instruction.PTInstruction;
+
+/**
+ * Gathers the instructions raised by the terminal and sends them in a single
+ * {@link ClientToServerModel#APPLICATION_INSTRUCTIONS} message, at the end of the event loop turn
+ * or of the batch window.
+ */
+public class InstructionQueue {
+
+    private static final Logger log = Logger.getLogger(InstructionQueue.class.getName());
+
+    private final RequestBuilder requestBuilder;
+
+    private final List<JSONObject> instructions = new ArrayList<>();
+    private final Map<String, JSONObject> coalescedInstructions = new HashMap<>();
+
+    private final Timer timer = new Timer() {
+
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private int batchWindow;
+    private boolean flushScheduled;
+
+    public InstructionQueue(final RequestBuilder requestBuilder) {
+        this.requestBuilder = requestBuilder;
+    }
+
+    /**
+     * @param batchWindow
+     *            delay in milliseconds during which the instructions are gathered, 0 to only
+     *            gather the instructions of the same event loop turn
+     */
+    public void setBatchWindow(final int batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    public void add(final JSONObject instruction) {
+        instructions.add(instruction);
+        scheduleFlush();
+    }
+
+    /**
+     * Adds an instruction that replaces the pending one with the same key, only the last state is
+     * sent (scroll position, size...)
+     */
+    public void add(final String coalescingKey, final JSONObject instruction) {
+        final JSONObject previousInstruction = coalescedInstructions.put(coalescingKey, instruction);
+        // Moved at the end, the instructions added in between could depend on the previous state
+        if (previousInstruction != null) instructions.remove(previousInstruction);
+        add(instruction);
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        if (batchWindow > 0) timer.schedule(batchWindow);
+        else Scheduler.get().scheduleDeferred(this::flush);
+    }
+
+    /**
+     * Sends the pending instructions now
+     */
+    public void flush() {
+        if (!flushScheduled) return;
+        flushScheduled = false;
+        timer.cancel();
+        if (instructions.isEmpty()) return;
+
+        final JSONArray jsonArray = new JSONArray();
+        for (int i = 0; i < instructions.size(); i++) {
+            jsonArray.set(i, instructions.get(i));
+        }
+        instructions.clear();
+        coalescedInstructions.clear();
+
+        final PTInstruction requestData = new PTInstruction();
+        requestData.put(ClientToServerModel.APPLICATION_INSTRUCTIONS, jsonArray);
+
+        if (log.isLoggable(Level.FINE)) log.log(Level.FINE, "Data to send " + requestData.toString());
+
+        requestBuilder.send(requestData);
+    }
+
+}
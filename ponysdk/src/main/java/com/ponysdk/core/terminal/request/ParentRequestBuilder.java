@@ -24,6 +24,7 @@
 package com.ponysdk.core.terminal.request;
 
 import com.google.gwt.json.client.JSONValue;
+import com.ponysdk.core.terminal.PonySDK;
 import com.ponysdk.core.terminal.model.ReaderBuffer;
 
 import elemental.client.Browser;
@@ -39,6 +40,7 @@ public abstract class ParentRequestBuilder implements RequestBuilder {
 
         Browser.getWindow().setOnmessage(event -> {
             final ReaderBuffer readerBuffer = new ReaderBuffer();
+            readerBuffer.setProtocolVersion(PonySDK.get().getProtocolVersion());
             readerBuffer.init((Uint8Array) ((MessageEvent) event).getData());
             onDataReceived(readerBuffer);
         });
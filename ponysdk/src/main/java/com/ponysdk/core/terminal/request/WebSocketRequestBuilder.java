@@ -23,20 +23,33 @@
 
 package com.ponysdk.core.terminal.request;
 
+import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONValue;
+import com.ponysdk.core.model.ProtocolVersion;
+import com.ponysdk.core.terminal.PonySDK;
+import com.ponysdk.core.terminal.model.WriterBuffer;
 import com.ponysdk.core.terminal.socket.WebSocketClient;
 
+import elemental.html.ArrayBuffer;
+
 public class WebSocketRequestBuilder implements RequestBuilder {
 
     private final WebSocketClient webSocketClient;
 
+    private final WriterBuffer writerBuffer = new WriterBuffer();
+
     public WebSocketRequestBuilder(final WebSocketClient webSocketClient) {
         this.webSocketClient = webSocketClient;
     }
 
     @Override
     public void send(final JSONValue value) {
-        webSocketClient.send(value.toString());
+        final JSONObject jsonObject = value.isObject();
+        final ArrayBuffer binaryValue = jsonObject != null
+                && PonySDK.get().getProtocolVersion().isSupporting(ProtocolVersion.BINARY_CLIENT_DATA) ? writerBuffer.encode(jsonObject)
+                        : null;
+        if (binaryValue != null) webSocketClient.send(binaryValue);
+        else webSocketClient.send(value.toString());
     }
 
     @Override
@@ -117,6 +117,15 @@ public class WebSocketClient implements MessageSender {
         webSocket.send(message);
     }
 
+    public void send(final ArrayBuffer message) {
+        sendBinary(webSocket, message);
+    }
+
+    // Elemental only declares the text version of WebSocket.send()
+    private static final native void sendBinary(WebSocket webSocket, ArrayBuffer message) /*-{
+        webSocket.send(message);
+    }-*/;
+
     public void close() {
         webSocket.close();
     }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.terminal.ui;
+
+import com.google.gwt.user.client.Timer;
+import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.model.DomHandlerType;
+import com.ponysdk.core.model.EventDeliveryMode;
+import com.ponysdk.core.terminal.UIBuilder;
+import com.ponysdk.core.terminal.instruction.PTInstruction;
+
+/**
+ * Applies the {@link EventDeliveryMode} requested by the server to the instructions of a DOM
+ * handler before they are sent
+ */
+public class DomEventDelivery {
+
+    private final UIBuilder uiBuilder;
+    private final DomHandlerType domHandlerType;
+    private final EventDeliveryMode mode;
+    private final int delay;
+
+    private final Timer timer = new Timer() {
+
+        @Override
+        public void run() {
+            onDelayElapsed();
+        }
+    };
+
+    private PTInstruction[] pendingInstructions;
+
+    public DomEventDelivery(final UIBuilder uiBuilder, final DomHandlerType domHandlerType, final EventDeliveryMode mode,
+            final int delay) {
+        this.uiBuilder = uiBuilder;
+        this.domHandlerType = domHandlerType;
+        this.mode = mode;
+        this.delay = delay;
+    }
+
+    /**
+     * @param instructions
+     *            the instructions raised by one event
+     */
+    public void deliver(final PTInstruction... instructions) {
+        switch (mode) {
+            case LEADING_DEBOUNCE:
+                if (!timer.isRunning()) send(instructions);
+                // Restarts the quiet period
+                timer.schedule(delay);
+                break;
+            case TRAILING_DEBOUNCE:
+                pendingInstructions = instructions;
+                timer.schedule(delay);
+                break;
+            case THROTTLE:
+                if (timer.isRunning()) {
+                    pendingInstructions = instructions;
+                } else {
+                    send(instructions);
+                    timer.schedule(delay);
+                }
+                break;
+            case LATEST:
+                for (int i = 0; i < instructions.length; i++) {
+                    uiBuilder.sendCoalescedDataToServer(instructions[i],
+                        ClientToServerModel.DOM_HANDLER_TYPE.toStringValue() + domHandlerType.getValue() + "." + i);
+                }
+                break;
+            default:
+                send(instructions);
+                break;
+        }
+    }
+
+    private void onDelayElapsed() {
+        if (pendingInstructions == null) return;
+        final PTInstruction[] instructions = pendingInstructions;
+        pendingInstructions = null;
+        send(instructions);
+        // The throttling period starts again with the event sent
+        if (EventDeliveryMode.THROTTLE == mode) timer.schedule(delay);
+    }
+
+    private void send(final PTInstruction[] instructions) {
+        for (final PTInstruction instruction : instructions) {
+            uiBuilder.sendDataToServer(instruction);
+        }
+    }
+
+}
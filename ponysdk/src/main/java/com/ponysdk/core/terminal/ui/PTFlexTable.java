@@ -23,6 +23,7 @@
 
 package com.ponysdk.core.terminal.ui;
 
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.user.client.ui.FlexTable;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.terminal.UIBuilder;
@@ -53,6 +54,18 @@ public class PTFlexTable extends PTHTMLTable<FlexTable> {
         } else if (ServerToClientModel.INSERT_ROW.ordinal() == modelOrdinal) {
             uiObject.insertRow(binaryModel.getIntValue());
             return true;
+        } else if (ServerToClientModel.INSERT_COLUMN.ordinal() == modelOrdinal) {
+            insertColumn(binaryModel.getIntValue());
+            return true;
+        } else if (ServerToClientModel.REMOVE_COLUMN.ordinal() == modelOrdinal) {
+            removeColumn(binaryModel.getIntValue());
+            return true;
+        } else if (ServerToClientModel.MOVE_COLUMN.ordinal() == modelOrdinal) {
+            final int column = binaryModel.getIntValue();
+            // ServerToClientModel.COLUMN
+            final int toColumn = buffer.readBinaryModel().getIntValue();
+            moveColumn(column, toColumn);
+            return true;
         } else if (ServerToClientModel.SET_COL_SPAN.ordinal() == modelOrdinal) {
             final int value = binaryModel.getIntValue();
             // ServerToClientModel.ROW
@@ -73,4 +86,37 @@ public class PTFlexTable extends PTHTMLTable<FlexTable> {
             return super.update(buffer, binaryModel);
         }
     }
+
+    private void insertColumn(final int column) {
+        for (int row = 0; row < uiObject.getRowCount(); row++) {
+            if (column < uiObject.getCellCount(row)) uiObject.insertCell(row, column);
+        }
+    }
+
+    private void removeColumn(final int column) {
+        for (int row = 0; row < uiObject.getRowCount(); row++) {
+            if (column < uiObject.getCellCount(row)) uiObject.removeCell(row, column);
+        }
+    }
+
+    /**
+     * Moves the cell elements, the widgets stay attached. The shorter rows get empty cells, like
+     * the cells shifted on the server.
+     */
+    private void moveColumn(final int column, final int toColumn) {
+        final int lastColumn = Math.max(column, toColumn);
+        for (int row = 0; row < uiObject.getRowCount(); row++) {
+            int cellCount = uiObject.getCellCount(row);
+            if (column >= cellCount && toColumn >= cellCount) continue;
+            while (cellCount <= lastColumn) {
+                uiObject.addCell(row);
+                cellCount++;
+            }
+            final Element cell = uiObject.getCellFormatter().getElement(row, column);
+            final Element rowElement = cell.getParentElement();
+            rowElement.removeChild(cell);
+            if (toColumn < rowElement.getChildCount()) rowElement.insertBefore(cell, rowElement.getChild(toColumn));
+            else rowElement.appendChild(cell);
+        }
+    }
 }
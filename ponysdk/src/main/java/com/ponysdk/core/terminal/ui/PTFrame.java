@@ -67,9 +67,11 @@ public class PTFrame extends PTWidget<HTMLPanel> implements PostMessageHandler {
 
         final String frameID = ClientToServerModel.FRAME_ID.toStringValue() + "=" + objectID;
         final String contextID = ClientToServerModel.UI_CONTEXT_ID.toStringValue() + "=" + PonySDK.get().getContextId();
+        final String protocolVersion = ClientToServerModel.PROTOCOL_VERSION.toStringValue() + "="
+                + PonySDK.get().getProtocolVersion().getValue();
 
         url += url.contains("?") ? "&" : "?";
-        url += contextID + "&" + frameID;
+        url += contextID + "&" + frameID + "&" + protocolVersion;
 
         iframe.getElement().setAttribute("src", url);
         return iframe;
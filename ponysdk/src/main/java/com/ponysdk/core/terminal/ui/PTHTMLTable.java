@@ -23,6 +23,7 @@
 
 package com.ponysdk.core.terminal.ui;
 
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.user.client.ui.HTMLTable;
 import com.google.gwt.user.client.ui.HasHorizontalAlignment.HorizontalAlignmentConstant;
 import com.google.gwt.user.client.ui.HasVerticalAlignment.VerticalAlignmentConstant;
@@ -47,10 +48,27 @@ public abstract class PTHTMLTable<T extends HTMLTable> extends PTPanel<T> {
         uiObject.setWidget(row, cell, w);
     }
 
+    /**
+     * Moves the row element, the widgets of the cells stay attached
+     */
+    private void moveRow(final int row, final int toRow) {
+        final Element rowElement = uiObject.getRowFormatter().getElement(row);
+        final Element body = rowElement.getParentElement();
+        body.removeChild(rowElement);
+        if (toRow < body.getChildCount()) body.insertBefore(rowElement, body.getChild(toRow));
+        else body.appendChild(rowElement);
+    }
+
     @Override
     public boolean update(final ReaderBuffer buffer, final BinaryModel binaryModel) {
         final int modelOrdinal = binaryModel.getModel().ordinal();
-        if (ServerToClientModel.CLEAR.ordinal() == modelOrdinal) {
+        if (ServerToClientModel.MOVE_ROW.ordinal() == modelOrdinal) {
+            final int row = binaryModel.getIntValue();
+            // ServerToClientModel.ROW
+            final int toRow = buffer.readBinaryModel().getIntValue();
+            moveRow(row, toRow);
+            return true;
+        } else if (ServerToClientModel.CLEAR.ordinal() == modelOrdinal) {
             uiObject.clear();
             return true;
         } else if (ServerToClientModel.BORDER_WIDTH.ordinal() == modelOrdinal) {
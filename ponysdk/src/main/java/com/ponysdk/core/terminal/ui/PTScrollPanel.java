@@ -101,7 +101,7 @@ public class PTScrollPanel extends PTSimplePanel<ScrollPanel> {
         eventInstruction.put(ClientToServerModel.HANDLER_SCROLL_WIDTH, uiObject.getMaximumHorizontalScrollPosition());
         eventInstruction.put(ClientToServerModel.HANDLER_SCROLL_VERTICAL, uiObject.getVerticalScrollPosition());
         eventInstruction.put(ClientToServerModel.HANDLER_SCROLL_HORIZONTAL, uiObject.getHorizontalScrollPosition());
-        uiBuilder.sendDataToServer(uiObject, eventInstruction);
+        uiBuilder.sendCoalescedDataToServer(eventInstruction, ClientToServerModel.HANDLER_SCROLL);
     }
 
     @Override
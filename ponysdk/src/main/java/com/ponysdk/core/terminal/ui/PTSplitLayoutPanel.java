@@ -142,7 +142,7 @@ public class PTSplitLayoutPanel extends PTDockLayoutPanel<MySplitLayoutPanel> {
                 if (i > 0) {
                     final PTInstruction eventInstruction = new PTInstruction(objectId);
                     eventInstruction.put(ClientToServerModel.HANDLER_RESIZE, jsonArray);
-                    uiBuilder.sendDataToServer(eventInstruction);
+                    uiBuilder.sendCoalescedDataToServer(eventInstruction, ClientToServerModel.HANDLER_RESIZE);
                 }
 
                 return false;
@@ -23,7 +23,9 @@
 
 package com.ponysdk.core.terminal.ui;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -56,6 +58,7 @@ import com.google.gwt.user.client.ui.TextBoxBase;
 import com.google.gwt.user.client.ui.Widget;
 import com.ponysdk.core.model.ClientToServerModel;
 import com.ponysdk.core.model.DomHandlerType;
+import com.ponysdk.core.model.EventDeliveryMode;
 import com.ponysdk.core.model.HandlerModel;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.terminal.instruction.PTInstruction;
@@ -72,6 +75,7 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
 
     private Set<Integer> preventedEvents;
     private Set<Integer> stoppedEvents;
+    private Map<DomHandlerType, DomEventDelivery> eventDeliveries;
 
     @Override
     public boolean update(final ReaderBuffer buffer, final BinaryModel binaryModel) {
@@ -98,6 +102,16 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
         if (HandlerModel.HANDLER_DOM.equals(handlerModel)) {
             // ServerToClientModel.DOM_HANDLER_CODE
             final DomHandlerType domHandlerType = DOM_HANDLER_TYPES[buffer.readBinaryModel().getByteValue()];
+            final BinaryModel deliveryModel = buffer.readBinaryModel();
+            if (ServerToClientModel.DOM_HANDLER_DELIVERY.equals(deliveryModel.getModel())) {
+                final EventDeliveryMode deliveryMode = EventDeliveryMode.fromValue(deliveryModel.getByteValue());
+                // ServerToClientModel.DOM_HANDLER_DELIVERY_DELAY
+                final int delay = buffer.readBinaryModel().getIntValue();
+                if (eventDeliveries == null) eventDeliveries = new HashMap<>();
+                eventDeliveries.put(domHandlerType, new DomEventDelivery(uiBuilder, domHandlerType, deliveryMode, delay));
+            } else {
+                buffer.rewind(deliveryModel);
+            }
             addDomHandler(buffer, domHandlerType);
         } else {
             super.addHandler(buffer, handlerModel);
@@ -166,12 +180,12 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
                         for (int i = 0; i < keyFilter.size(); i++) {
                             final JSONNumber keyCode = keyFilter.get(i).isNumber();
                             if (keyCode.doubleValue() == event.getNativeEvent().getKeyCode()) {
-                                uiBuilder.sendDataToServer(uiObject, eventInstruction);
+                                sendDomEvent(domHandlerType, eventInstruction);
                                 break;
                             }
                         }
                     } else {
-                        uiBuilder.sendDataToServer(uiObject, eventInstruction);
+                        sendDomEvent(domHandlerType, eventInstruction);
                     }
 
                     preventOrStopEvent(event);
@@ -200,14 +214,12 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
                             for (int i = 0; i < keyUpFilter.size(); i++) {
                                 final JSONNumber keyCode = keyUpFilter.get(i).isNumber();
                                 if (keyCode.doubleValue() == event.getNativeEvent().getKeyCode()) {
-                                    uiBuilder.sendDataToServer(changeHandlerInstruction);
-                                    uiBuilder.sendDataToServer(eventInstruction);
+                                    sendDomEvent(domHandlerType, changeHandlerInstruction, eventInstruction);
                                     break;
                                 }
                             }
                         } else {
-                            uiBuilder.sendDataToServer(changeHandlerInstruction);
-                            uiBuilder.sendDataToServer(eventInstruction);
+                            sendDomEvent(domHandlerType, changeHandlerInstruction, eventInstruction);
                         }
                         preventOrStopEvent(event);
                     });
@@ -220,12 +232,12 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
                             for (int i = 0; i < keyUpFilter.size(); i++) {
                                 final JSONNumber keyCode = keyUpFilter.get(i).isNumber();
                                 if (keyCode.doubleValue() == event.getNativeEvent().getKeyCode()) {
-                                    uiBuilder.sendDataToServer(uiObject, eventInstruction);
+                                    sendDomEvent(domHandlerType, eventInstruction);
                                     break;
                                 }
                             }
                         } else {
-                            uiBuilder.sendDataToServer(uiObject, eventInstruction);
+                            sendDomEvent(domHandlerType, eventInstruction);
                         }
                         preventOrStopEvent(event);
                     }, KeyUpEvent.getType());
@@ -259,7 +271,7 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
                     final String dragWidgetID = event.getData("text");
                     final PTInstruction eventInstruction = buildEventInstruction(domHandlerType);
                     if (dragWidgetID != null) eventInstruction.put(ClientToServerModel.DRAG_SRC, Long.parseLong(dragWidgetID));
-                    uiBuilder.sendDataToServer(uiObject, eventInstruction);
+                    sendDomEvent(domHandlerType, eventInstruction);
                 }, DropEvent.getType());
                 break;
             case CONTEXT_MENU:
@@ -273,6 +285,17 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
         }
     }
 
+    private void sendDomEvent(final DomHandlerType domHandlerType, final PTInstruction... instructions) {
+        final DomEventDelivery eventDelivery = eventDeliveries != null ? eventDeliveries.get(domHandlerType) : null;
+        if (eventDelivery != null) {
+            eventDelivery.deliver(instructions);
+        } else {
+            for (final PTInstruction instruction : instructions) {
+                uiBuilder.sendDataToServer(uiObject, instruction);
+            }
+        }
+    }
+
     private PTInstruction buildEventInstruction(final DomHandlerType domHandlerType) {
         final PTInstruction eventInstruction = new PTInstruction(getObjectID());
         eventInstruction.put(ClientToServerModel.DOM_HANDLER_TYPE, domHandlerType.getValue());
@@ -281,7 +304,7 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
 
     private void triggerDomEvent(final DomHandlerType domHandlerType, final DomEvent<?> event) {
         final PTInstruction eventInstruction = buildEventInstruction(domHandlerType);
-        uiBuilder.sendDataToServer(uiObject, eventInstruction);
+        sendDomEvent(domHandlerType, eventInstruction);
         preventOrStopEvent(event);
     }
 
@@ -303,7 +326,7 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
         widgetInfo.set(3, new JSONNumber(uiObject.getOffsetWidth()));
         eventInstruction.put(ClientToServerModel.WIDGET_POSITION, widgetInfo);
 
-        uiBuilder.sendDataToServer(uiObject, eventInstruction);
+        sendDomEvent(domHandlerType, eventInstruction);
 
         preventOrStopEvent(event);
     }
@@ -326,7 +349,7 @@ public abstract class PTWidget<T extends Widget> extends PTUIObject<T> implement
         widgetInfo.set(3, new JSONNumber(uiObject.getOffsetWidth()));
         eventInstruction.put(ClientToServerModel.WIDGET_POSITION, widgetInfo);
 
-        uiBuilder.sendDataToServer(uiObject, eventInstruction);
+        sendDomEvent(domHandlerType, eventInstruction);
 
         preventOrStopEvent(event);
     }
@@ -71,7 +71,8 @@ public class PTWindow extends AbstractPTObject implements PostMessageHandler {
 
         if (relative) {
             url = GWT.getHostPageBaseURL() + url + "?" + ClientToServerModel.WINDOW_ID.toStringValue() + "=" + objectId + "&"
-                    + ClientToServerModel.UI_CONTEXT_ID.toStringValue() + "=" + PonySDK.get().getContextId();
+                    + ClientToServerModel.UI_CONTEXT_ID.toStringValue() + "=" + PonySDK.get().getContextId() + "&"
+                    + ClientToServerModel.PROTOCOL_VERSION.toStringValue() + "=" + PonySDK.get().getProtocolVersion().getValue();
         }
 
         PTWindowManager.get().register(this);
@@ -23,6 +23,7 @@
 
 package com.ponysdk.core.ui.basic;
 
+import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.model.WidgetType;
 
 /**
@@ -41,4 +42,45 @@ public class PFlexTable extends PHTMLTable<PFlexCellFormatter> {
     protected WidgetType getWidgetType() {
         return WidgetType.FLEX_TABLE;
     }
+
+    /**
+     * Inserts a column in all the rows, the cells of the next columns shift right. Only one
+     * instruction is sent.
+     */
+    public void insertColumn(final int column) {
+        remapColumns(c -> c >= column ? c + 1 : c);
+        saveUpdate(writer -> writer.write(ServerToClientModel.INSERT_COLUMN, column));
+    }
+
+    /**
+     * Removes a column and its widgets in all the rows, the cells of the next columns shift left.
+     * Only one instruction is sent.
+     */
+    public void removeColumn(final int column) {
+        removeColumnWidgets(column);
+        remapColumns(c -> c > column ? c - 1 : c);
+        saveUpdate(writer -> writer.write(ServerToClientModel.REMOVE_COLUMN, column));
+    }
+
+    /**
+     * Moves a column and its widgets in all the rows, the columns between shift by one. Only one
+     * instruction is sent.
+     *
+     * @param column
+     *            the index of the column to move
+     * @param toColumn
+     *            the index of the column once moved
+     */
+    public void moveColumn(final int column, final int toColumn) {
+        if (column == toColumn) return;
+        remapColumns(c -> {
+            if (c == column) return toColumn;
+            else if (column < toColumn) return c > column && c <= toColumn ? c - 1 : c;
+            else return c >= toColumn && c < column ? c + 1 : c;
+        });
+        saveUpdate(writer -> {
+            writer.write(ServerToClientModel.MOVE_COLUMN, column);
+            writer.write(ServerToClientModel.COLUMN, toColumn);
+        });
+    }
 }
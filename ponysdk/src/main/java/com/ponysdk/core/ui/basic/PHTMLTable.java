@@ -34,6 +34,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
 
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.ui.model.ServerBinaryModel;
@@ -139,11 +140,13 @@ public abstract class PHTMLTable<T extends PCellFormatter> extends PPanel {
 
     public void removeRow(final int row) {
         final TreeMap<Integer, PWidget> widgetByColumn = columnByRow.remove(new Row(row));
-        if (widgetByColumn == null) return;
         getRowFormatter().removeRowStyle(row);
 
-        final List<PWidget> values = new ArrayList<>(widgetByColumn.values());
-        values.forEach(widget -> remove(widget, false));
+        // A row without widgets is removed too, the next rows must shift on both sides
+        if (widgetByColumn != null) {
+            final List<PWidget> values = new ArrayList<>(widgetByColumn.values());
+            values.forEach(widget -> remove(widget, false));
+        }
 
         for (final Entry<Row, TreeMap<Integer, PWidget>> entry : columnByRow.entrySet()) {
             final Row irow = entry.getKey();
@@ -174,6 +177,73 @@ public abstract class PHTMLTable<T extends PCellFormatter> extends PPanel {
         saveUpdate(writer -> writer.write(ServerToClientModel.INSERT_ROW, row));
     }
 
+    /**
+     * Moves a row and its widgets, the rows between shift by one. Only one instruction is sent,
+     * the terminal moves the row element.
+     *
+     * @param row
+     *            the index of the row to move
+     * @param toRow
+     *            the index of the row once moved
+     */
+    public void moveRow(final int row, final int toRow) {
+        if (row == toRow) return;
+
+        final TreeMap<Integer, PWidget> widgetByColumn = columnByRow.remove(new Row(row));
+        final int shift = row < toRow ? -1 : 1;
+        final Row lower = new Row(Math.min(row, toRow));
+        final Row upper = new Row(Math.max(row, toRow));
+        // The shifted rows keep their order, the keys can be changed in place
+        for (final Entry<Row, TreeMap<Integer, PWidget>> entry : columnByRow.subMap(lower, true, upper, true).entrySet()) {
+            for (final PWidget widget : entry.getValue().values()) {
+                cellByWidget.get(widget).row += shift;
+            }
+            entry.getKey().value += shift;
+        }
+        if (widgetByColumn != null) {
+            for (final PWidget widget : widgetByColumn.values()) {
+                cellByWidget.get(widget).row = toRow;
+            }
+            columnByRow.put(new Row(toRow), widgetByColumn);
+        }
+
+        rowFormatter.moveRowStyle(row, toRow);
+        saveUpdate(writer -> {
+            writer.write(ServerToClientModel.MOVE_ROW, row);
+            writer.write(ServerToClientModel.ROW, toRow);
+        });
+    }
+
+    /**
+     * Logically removes the widgets of a column, the terminal removes the cells
+     */
+    void removeColumnWidgets(final int column) {
+        final List<PWidget> values = new ArrayList<>();
+        for (final TreeMap<Integer, PWidget> widgetByColumn : columnByRow.values()) {
+            final PWidget widget = widgetByColumn.get(column);
+            if (widget != null) values.add(widget);
+        }
+        values.forEach(widget -> remove(widget, false));
+    }
+
+    /**
+     * Changes the column of all the widgets
+     *
+     * @param mapping
+     *            gives the new column of a column
+     */
+    void remapColumns(final IntUnaryOperator mapping) {
+        for (final Entry<Row, TreeMap<Integer, PWidget>> entry : columnByRow.entrySet()) {
+            final TreeMap<Integer, PWidget> widgetByColumn = new TreeMap<>();
+            for (final Entry<Integer, PWidget> cellEntry : entry.getValue().entrySet()) {
+                final int column = mapping.applyAsInt(cellEntry.getKey());
+                cellByWidget.get(cellEntry.getValue()).column = column;
+                widgetByColumn.put(column, cellEntry.getValue());
+            }
+            entry.setValue(widgetByColumn);
+        }
+    }
+
     @Override
     public boolean remove(final PWidget widget) {
         return remove(widget, true);
@@ -368,6 +438,20 @@ public abstract class PHTMLTable<T extends PCellFormatter> extends PPanel {
             styleNames = temp;
         }
 
+        protected void moveRowStyle(final int row, final int toRow) {
+            final int min = Math.min(row, toRow);
+            final int max = Math.max(row, toRow);
+            final int shift = row < toRow ? -1 : 1;
+            final Map<Integer, Set<String>> temp = new HashMap<>();
+            for (final Entry<Integer, Set<String>> entry : styleNames.entrySet()) {
+                final int key = entry.getKey();
+                if (key == row) temp.put(toRow, entry.getValue());
+                else if (key >= min && key <= max) temp.put(key + shift, entry.getValue());
+                else temp.put(key, entry.getValue());
+            }
+            styleNames = temp;
+        }
+
         protected void removeRowStyle(final int row) {
             styleNames.remove(row);
             final Map<Integer, Set<String>> temp = new HashMap<>();
@@ -203,21 +203,34 @@ public abstract class PObject {
     }
 
     protected void saveUpdate(final ModelWriterCallback callback) {
-        saveUpdate(atomicKey.incrementAndGet(), callback);
+        saveUpdate(atomicKey.incrementAndGet(), null, callback);
     }
 
     protected void saveUpdate(final ServerToClientModel serverToClientModel, final Object value) {
-        saveUpdate(serverToClientModel.getValue(), writer -> writer.write(serverToClientModel, value));
+        saveUpdate(serverToClientModel.getValue(), serverToClientModel, writer -> writer.write(serverToClientModel, value));
     }
 
-    private void saveUpdate(final int atomicKey, final ModelWriterCallback callback) {
+    private void saveUpdate(final int atomicKey, final ServerToClientModel serverToClientModel, final ModelWriterCallback callback) {
         if (destroy) return;
 
-        if (initialized) writeUpdate(callback);
-        else safeStackedInstructions().put(atomicKey, () -> writeUpdate(callback));
+        if (initialized) writeUpdate(serverToClientModel, callback);
+        else safeStackedInstructions().put(atomicKey, () -> writeUpdate(serverToClientModel, callback));
     }
 
     void writeUpdate(final ModelWriterCallback callback) {
+        writeUpdate(null, callback);
+    }
+
+    private void writeUpdate(final ServerToClientModel serverToClientModel, final ModelWriterCallback callback) {
+        if (destroy) return;
+
+        final ModelWriter writer = Txn.get().getWriter();
+        if (writer.isBufferingUpdates()) writer.bufferUpdate(ID, serverToClientModel, callback, this::doWriteUpdate);
+        else doWriteUpdate(callback);
+    }
+
+    private void doWriteUpdate(final ModelWriterCallback callback) {
+        // The object can be destroyed while its update is buffered
         if (destroy) return;
 
         final ModelWriter writer = Txn.get().getWriter();
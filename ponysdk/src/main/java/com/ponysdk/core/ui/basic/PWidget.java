@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import com.ponysdk.core.model.ClientToServerModel;
 import com.ponysdk.core.model.DomHandlerType;
+import com.ponysdk.core.model.EventDeliveryMode;
 import com.ponysdk.core.model.HandlerModel;
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.server.application.UIContext;
@@ -354,25 +355,56 @@ public abstract class PWidget extends PObject implements IsPWidget, HasPHandlers
 
     @Override
     public HandlerRegistration addKeyPressHandler(final PKeyPressHandler handler) {
+        return addKeyPressHandler(handler, null, 0);
+    }
+
+    /**
+     * @see #addDomHandler(EventHandler, PDomEvent.Type, EventDeliveryMode, int)
+     */
+    public HandlerRegistration addKeyPressHandler(final PKeyPressHandler handler, final EventDeliveryMode deliveryMode,
+                                                  final int delay) {
         final JsonObject filteredKeys = handler.getJsonFilteredKeys();
-        if (filteredKeys != null)
-            return addDomHandler(handler, PKeyPressEvent.TYPE, new ServerBinaryModel(ServerToClientModel.KEY_FILTER, filteredKeys));
-        else return addDomHandler(handler, PKeyPressEvent.TYPE);
+        if (filteredKeys != null) return addDomHandler(handler, PKeyPressEvent.TYPE, deliveryMode, delay,
+            new ServerBinaryModel(ServerToClientModel.KEY_FILTER, filteredKeys));
+        else return addDomHandler(handler, PKeyPressEvent.TYPE, deliveryMode, delay, null);
     }
 
     @Override
     public HandlerRegistration addKeyUpHandler(final PKeyUpHandler handler) {
+        return addKeyUpHandler(handler, null, 0);
+    }
+
+    /**
+     * @see #addDomHandler(EventHandler, PDomEvent.Type, EventDeliveryMode, int)
+     */
+    public HandlerRegistration addKeyUpHandler(final PKeyUpHandler handler, final EventDeliveryMode deliveryMode, final int delay) {
         final JsonObject filteredKeys = handler.getJsonFilteredKeys();
-        if (filteredKeys != null)
-            return addDomHandler(handler, PKeyUpEvent.TYPE, new ServerBinaryModel(ServerToClientModel.KEY_FILTER, filteredKeys));
-        else return addDomHandler(handler, PKeyUpEvent.TYPE);
+        if (filteredKeys != null) return addDomHandler(handler, PKeyUpEvent.TYPE, deliveryMode, delay,
+            new ServerBinaryModel(ServerToClientModel.KEY_FILTER, filteredKeys));
+        else return addDomHandler(handler, PKeyUpEvent.TYPE, deliveryMode, delay, null);
     }
 
     public HandlerRegistration addDomHandler(final EventHandler handler, final PDomEvent.Type type) {
-        return addDomHandler(handler, type, null);
+        return addDomHandler(handler, type, null, 0, null);
+    }
+
+    /**
+     * Adds a DOM handler whose events are debounced or throttled by the terminal before being sent
+     * to the server. The events of a DOM type are raised once by the terminal for all the handlers,
+     * so only the delivery mode of the first handler of the type is used.
+     *
+     * @param deliveryMode
+     *            null to send each event
+     * @param delay
+     *            delay in milliseconds of the mode
+     */
+    public HandlerRegistration addDomHandler(final EventHandler handler, final PDomEvent.Type type,
+                                             final EventDeliveryMode deliveryMode, final int delay) {
+        return addDomHandler(handler, type, deliveryMode, delay, null);
     }
 
     private HandlerRegistration addDomHandler(final EventHandler handler, final PDomEvent.Type type,
+                                              final EventDeliveryMode deliveryMode, final int delay,
                                               final ServerBinaryModel binaryModel) {
         if (destroy) return null;
         final HandlerRegistration handlerRegistration = ensureEventBus().addHandlerToSource(type, this, handler);
@@ -386,6 +418,10 @@ public abstract class PWidget extends PObject implements IsPWidget, HasPHandlers
             final ModelWriterCallback callback = writer -> {
                 writer.write(ServerToClientModel.HANDLER_TYPE, HandlerModel.HANDLER_DOM.getValue());
                 writer.write(binaryModel1.getKey(), binaryModel1.getValue());
+                if (deliveryMode != null) {
+                    writer.write(ServerToClientModel.DOM_HANDLER_DELIVERY, deliveryMode.getValue());
+                    writer.write(ServerToClientModel.DOM_HANDLER_DELIVERY_DELAY, delay);
+                }
                 if (binaryModel != null) writer.write(binaryModel.getKey(), binaryModel.getValue());
             };
             if (initialized) writeAddHandler(callback);
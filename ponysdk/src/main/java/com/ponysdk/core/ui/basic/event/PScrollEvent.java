@@ -60,6 +60,14 @@ public class PScrollEvent extends Event<PScrollEvent.PScrollHandler> {
         handler.onScroll(this);
     }
 
+    public int getVerticalPosition() {
+        return verticalPostion;
+    }
+
+    public int getHorizontalPosition() {
+        return horizontalPosition;
+    }
+
     public boolean isScrollTop() {
         return verticalPostion == 0;
     }
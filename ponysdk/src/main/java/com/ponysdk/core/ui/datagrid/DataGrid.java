@@ -12,7 +12,8 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
     private final View view;
     private final List<ColumnDescriptor<DataType>> columns = new ArrayList<>();
 
-    private final TreeSet<Decorator<DataType>> rows;
+    private final RowIndex<DataType> rows;
+    private final Map<Object, Decorator<DataType>> rowsByKey = new HashMap<>();
     private final Function<DataType, ?> keyProvider;
 
     public DataGrid() {
@@ -30,7 +31,8 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
     public DataGrid(final View view, final Function<DataType, ?> keyProvider, Comparator<DataType> comparator) {
         this.view = view;
         this.keyProvider = keyProvider;
-        this.rows = new TreeSet<>((o1, o2) -> comparator.compare(o1.data, o2.data));
+        this.rows = new RowIndex<>(comparator);
+        view.setRowDrawer(this::draw);
     }
 
     @Override
@@ -39,35 +41,51 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
     }
 
     public void addColumnDescriptor(final ColumnDescriptor<DataType> column) {
-        if (columns.add(column)) {
-            int r = 0, c = columns.size() - 1;
+        addColumnDescriptor(columns.size(), column);
+    }
 
-            drawHeader(c, column);
+    /**
+     * Inserts the column before the column at this index, the next columns are shifted with a
+     * single instruction
+     */
+    public void addColumnDescriptor(final int index, final ColumnDescriptor<DataType> column) {
+        final boolean inserted = index == columns.size() || view.insertColumn(index);
+        columns.add(index, column);
 
-            for (final Decorator<DataType> w : rows) {
-                drawCell(r++, c, column, w.data);
-            }
-        }
+        if (inserted) drawColumn(index, column);
+        else drawColumns(index, columns.size());
+    }
+
+    /**
+     * Moves the column and its cells with a single instruction, nothing is rendered again
+     */
+    public void moveColumn(final ColumnDescriptor<DataType> column, final int index) {
+        final int c = columns.indexOf(column);
+        if (c == -1 || c == index) return;
+        columns.remove(c);
+        columns.add(index, column);
+        if (!view.moveColumn(c, index)) drawColumns(Math.min(c, index), Math.max(c, index) + 1);
     }
 
     public void setData(final DataType data) {
-        final Decorator<DataType> d = new Decorator<>(keyProvider.apply(data), data);
-
-        if (rows.contains(d)) {
-            final int indexBefore = rows.headSet(d).size();
-            if (indexBefore != -1) {
-                rows.remove(d);
-                rows.add(d);
-                int indexAfter = rows.headSet(d).size();
-                if (indexBefore == indexAfter) {
-                    update(indexAfter, d);
-                } else {
-                    draw(Math.min(indexBefore, indexAfter), d);
-                }
-            }
+        final Object key = keyProvider.apply(data);
+        Decorator<DataType> d = rowsByKey.get(key);
+
+        if (d != null) {
+            final int indexBefore = rows.indexOf(d);
+            rows.remove(d);
+            d.data = data;
+            final int indexAfter = rows.add(d);
+            // The other rows are not redrawn, they only shift by one
+            if (indexBefore != indexAfter && !view.moveRow(indexBefore, indexAfter))
+                draw(Math.min(indexBefore, indexAfter), Math.max(indexBefore, indexAfter) + 1);
+            else if (view.isDrawn(indexAfter)) update(indexAfter, d);
         } else {
-            rows.add(d);
-            draw(rows.headSet(d).size(), d);
+            d = new Decorator<>(key, data);
+            rowsByKey.put(key, d);
+            final int index = rows.add(d);
+            if (!view.insertRow(index)) draw(index, rows.size());
+            else if (view.isDrawn(index)) update(index, d);
         }
     }
 
@@ -77,32 +95,25 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
         final int c = columns.indexOf(column);
 
         if (c != -1) {
-            int r = 0;
-
-            int size = columns.size() - 1;
-
             columns.remove(c);
-
-            for (int i = c; i < columns.size(); i++) {
-                final ColumnDescriptor<DataType> currentColumn = columns.get(i);
-                drawHeader(i, currentColumn);
-                for (final Decorator<DataType> d : rows) {
-                    drawCell(r++, i, currentColumn, d.data);
-                }
-                r = 0;
+            // The next columns are shifted with a single instruction
+            if (!view.removeColumn(c)) {
+                drawColumns(c, columns.size());
+                resetColumn(columns.size(), column);
             }
-
-            resetColumn(size, column);
         }
     }
 
     public void removeData(final DataType data) {
-        final Decorator<DataType> d = new Decorator<>(keyProvider.apply(data), data);
-        final Decorator<DataType> higher = rows.higher(d);
-        final int index = rows.headSet(d).size();
-        if (rows.remove(d)) {
-            draw(index, higher);
-            resetRow(rows.size());
+        final Decorator<DataType> d = rowsByKey.remove(keyProvider.apply(data));
+        if (d != null) {
+            final int index = rows.indexOf(d);
+            rows.remove(d);
+            // The removed widgets are not reset, they are dropped
+            if (!view.removeRow(index)) {
+                draw(index, rows.size());
+                resetRow(rows.size());
+            }
         }
     }
 
@@ -114,6 +125,22 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
         view.setHeader(c, column.getHeaderRenderer().render());
     }
 
+    private void drawColumns(final int fromColumn, final int toColumn) {
+        for (int c = fromColumn; c < toColumn; c++) {
+            drawColumn(c, columns.get(c));
+        }
+    }
+
+    private void drawColumn(final int c, final ColumnDescriptor<DataType> column) {
+        drawHeader(c, column);
+
+        int r = 0;
+        for (final Decorator<DataType> w : rows) {
+            if (view.isDrawn(r)) drawCell(r, c, column, w.data);
+            r++;
+        }
+    }
+
     private void update(final int r, final Decorator<DataType> d) {
         int c = 0;
         for (final ColumnDescriptor<DataType> column : columns) {
@@ -121,18 +148,11 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
         }
     }
 
-    private void draw(int fromRow, final Decorator<DataType> from) {
-        if (from == null) return;
-        final SortedSet<Decorator<DataType>> tail = rows.tailSet(from);
-        int r = fromRow;
-        int c = 0;
-
-        for (final Decorator<DataType> w : tail) {
-            for (final ColumnDescriptor<DataType> column : columns) {
-                drawCell(r, c++, column, w.data);
-            }
-            c = 0;
-            r++;
+    private void draw(final int fromRow, final int toRow) {
+        final Iterator<Decorator<DataType>> iterator = rows.iterator(fromRow);
+        for (int r = fromRow; r < toRow && iterator.hasNext(); r++) {
+            final Decorator<DataType> d = iterator.next();
+            if (view.isDrawn(r)) update(r, d);
         }
     }
 
@@ -148,16 +168,17 @@ public class DataGrid<DataType extends Comparable<DataType>> implements IsPWidge
 
     }
 
-    private void resetColumn(final Integer c, final ColumnDescriptor<DataType> column) {
-        PWidget header = view.getHeader(c);
+    private void resetColumn(final int c, final ColumnDescriptor<DataType> column) {
+        final PWidget header = view.getHeader(c);
         if (header != null) header.removeFromParent();
 
         for (int r = 0; r < view.getRowCount(); r++) {
-            column.getCellRenderer().reset(view.getCell(r, c));
+            if (view.isDrawn(r)) column.getCellRenderer().reset(view.getCell(r, c));
         }
     }
 
-    private void resetRow(final Integer r) {
+    private void resetRow(final int r) {
+        if (!view.isDrawn(r)) return;
         int c = 0;
         for (final ColumnDescriptor<DataType> column : columns) {
             column.getCellRenderer().reset(view.getCell(r, c++));
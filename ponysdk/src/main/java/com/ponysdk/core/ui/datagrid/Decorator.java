@@ -4,14 +4,25 @@ import java.util.Objects;
 
 class Decorator<DataType> {
 
-    final DataType data;
+    DataType data;
     private final Object key;
 
+    // Node of the RowIndex
+    Decorator<DataType> parent;
+    Decorator<DataType> left;
+    Decorator<DataType> right;
+    int size;
+    int priority;
+
     Decorator(final Object key, final DataType data) {
         this.key = key;
         this.data = data;
     }
 
+    Object getKey() {
+        return key;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
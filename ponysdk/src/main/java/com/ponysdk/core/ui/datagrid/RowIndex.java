@@ -0,0 +1,197 @@
+package com.ponysdk.core.ui.datagrid;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted rows of a {@link DataGrid}, with their position in O(log n).<br>
+ * A treap whose nodes are the decorators themselves : each node knows the size of its subtree, so
+ * the rank of a row is computed by walking up to the root, and the row at a rank by walking down.
+ * Rows comparing equal are kept in insertion order.
+ */
+class RowIndex<DataType> implements Iterable<Decorator<DataType>> {
+
+    private final Comparator<DataType> comparator;
+
+    private Decorator<DataType> root;
+
+    // xorshift, the priorities only have to be random enough to keep the tree balanced
+    private int seed = 0x9E3779B9;
+
+    RowIndex(final Comparator<DataType> comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return the rank of the added row
+     */
+    int add(final Decorator<DataType> row) {
+        row.left = row.right = row.parent = null;
+        row.size = 1;
+        row.priority = nextPriority();
+
+        if (root == null) {
+            root = row;
+            return 0;
+        }
+
+        Decorator<DataType> parent = root;
+        while (true) {
+            parent.size++;
+            if (comparator.compare(row.data, parent.data) < 0) {
+                if (parent.left == null) {
+                    parent.left = row;
+                    break;
+                }
+                parent = parent.left;
+            } else {
+                if (parent.right == null) {
+                    parent.right = row;
+                    break;
+                }
+                parent = parent.right;
+            }
+        }
+        row.parent = parent;
+
+        while (row.parent != null && row.parent.priority < row.priority) {
+            rotateUp(row);
+        }
+        return indexOf(row);
+    }
+
+    /**
+     * @param row
+     *            A row of this index
+     */
+    void remove(final Decorator<DataType> row) {
+        // Rotated down until it is a leaf or has a single child
+        while (row.left != null && row.right != null) {
+            rotateUp(row.left.priority > row.right.priority ? row.left : row.right);
+        }
+
+        final Decorator<DataType> child = row.left != null ? row.left : row.right;
+        final Decorator<DataType> parent = row.parent;
+        if (child != null) child.parent = parent;
+        if (parent == null) root = child;
+        else if (parent.left == row) parent.left = child;
+        else parent.right = child;
+
+        for (Decorator<DataType> node = parent; node != null; node = node.parent) {
+            node.size--;
+        }
+        row.left = row.right = row.parent = null;
+    }
+
+    /**
+     * @param row
+     *            A row of this index
+     */
+    int indexOf(final Decorator<DataType> row) {
+        int index = size(row.left);
+        for (Decorator<DataType> node = row; node.parent != null; node = node.parent) {
+            if (node.parent.right == node) index += size(node.parent.left) + 1;
+        }
+        return index;
+    }
+
+    Decorator<DataType> get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        Decorator<DataType> node = root;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Decorator<DataType>> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * @return an iterator starting at the row of this rank
+     */
+    Iterator<Decorator<DataType>> iterator(final int fromIndex) {
+        return new Iterator<Decorator<DataType>>() {
+
+            private Decorator<DataType> next = fromIndex < size() ? get(fromIndex) : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Decorator<DataType> next() {
+                if (next == null) throw new NoSuchElementException();
+                final Decorator<DataType> current = next;
+                next = successor(current);
+                return current;
+            }
+        };
+    }
+
+    private static <DataType> Decorator<DataType> successor(Decorator<DataType> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        while (node.parent != null && node.parent.right == node) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    /**
+     * Rotates the node above its parent, the sizes of both are updated
+     */
+    private void rotateUp(final Decorator<DataType> node) {
+        final Decorator<DataType> parent = node.parent;
+        final Decorator<DataType> grandParent = parent.parent;
+        if (parent.left == node) {
+            parent.left = node.right;
+            if (node.right != null) node.right.parent = parent;
+            node.right = parent;
+        } else {
+            parent.right = node.left;
+            if (node.left != null) node.left.parent = parent;
+            node.left = parent;
+        }
+        parent.parent = node;
+        node.parent = grandParent;
+        if (grandParent == null) root = node;
+        else if (grandParent.left == parent) grandParent.left = node;
+        else grandParent.right = node;
+
+        node.size = parent.size;
+        parent.size = size(parent.left) + size(parent.right) + 1;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static int size(final Decorator<?> node) {
+        return node != null ? node.size : 0;
+    }
+
+}
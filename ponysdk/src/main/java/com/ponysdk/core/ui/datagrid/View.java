@@ -15,4 +15,87 @@ public interface View extends IsPWidget {
 
     PWidget getCell(int r, int c);
 
+    /**
+     * Inserts an empty row r, the next rows shift by one
+     *
+     * @return false if the view doesn't insert rows, the grid then draws again the shifted rows
+     */
+    default boolean insertRow(final int r) {
+        return false;
+    }
+
+    /**
+     * Removes the row r with its widgets, the next rows shift by one
+     *
+     * @return false if the view doesn't remove rows, the grid then draws again the shifted rows
+     *         and resets the last one
+     */
+    default boolean removeRow(final int r) {
+        return false;
+    }
+
+    /**
+     * Moves the row r and its cells, it is at the index to once moved
+     *
+     * @return false if the view doesn't move rows, the grid then draws again the rows between the
+     *         two indexes
+     */
+    default boolean moveRow(final int r, final int to) {
+        return false;
+    }
+
+    /**
+     * Inserts an empty column c in the header and all the rows
+     *
+     * @return false if the view doesn't insert columns, the grid then draws again the shifted
+     *         columns
+     */
+    default boolean insertColumn(final int c) {
+        return false;
+    }
+
+    /**
+     * Removes the column c from the header and all the rows, with its widgets
+     *
+     * @return false if the view doesn't remove columns, the grid then draws again the shifted
+     *         columns and resets the last one
+     */
+    default boolean removeColumn(final int c) {
+        return false;
+    }
+
+    /**
+     * Moves the column c, it is at the index to once moved
+     *
+     * @return false if the view doesn't move columns, the grid then draws again the columns
+     *         between the two indexes
+     */
+    default boolean moveColumn(final int c, final int to) {
+        return false;
+    }
+
+    /**
+     * @return false if the row is not kept as widgets by the view, the grid doesn't draw it
+     */
+    default boolean isDrawn(final int r) {
+        return true;
+    }
+
+    /**
+     * Called once by the grid, a view keeping only some rows as widgets uses the drawer when its
+     * window moves
+     */
+    default void setRowDrawer(final RowDrawer drawer) {
+    }
+
+    @FunctionalInterface
+    interface RowDrawer {
+
+        /**
+         * Draws the rows [fromRow, toRow[ in the cells of the view
+         */
+        void draw(int fromRow, int toRow);
+
+    }
+
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import com.ponysdk.core.ui.datagrid.View;
 public class DefaultView implements View {
 
     private final PFlexTable table = Element.newPFlexTable();
+    // The terminal table only has the rows that were inserted or that received a widget
+    private boolean headerRow;
 
     @Override
     public PWidget asWidget() {
@@ -16,6 +18,7 @@ public class DefaultView implements View {
 
     @Override
     public void setHeader(final int c, final PWidget w) {
+        headerRow = true;
         table.setWidget(0, c, w);
     }
 
@@ -36,7 +39,49 @@ public class DefaultView implements View {
 
     @Override
     public void setCell(final int r, final int c, final PWidget w) {
+        headerRow = true;
         table.setWidget(r + 1, c, w);
     }
 
+    @Override
+    public boolean insertRow(final int r) {
+        if (!headerRow) {
+            // The rows are offset by the header row, it must exist before the first insertion
+            headerRow = true;
+            if (table.getRowCount() == 0) table.insertRow(0);
+        }
+        table.insertRow(r + 1);
+        return true;
+    }
+
+    @Override
+    public boolean removeRow(final int r) {
+        table.removeRow(r + 1);
+        return true;
+    }
+
+    @Override
+    public boolean moveRow(final int r, final int to) {
+        table.moveRow(r + 1, to + 1);
+        return true;
+    }
+
+    @Override
+    public boolean insertColumn(final int c) {
+        table.insertColumn(c);
+        return true;
+    }
+
+    @Override
+    public boolean removeColumn(final int c) {
+        table.removeColumn(c);
+        return true;
+    }
+
+    @Override
+    public boolean moveColumn(final int c, final int to) {
+        table.moveColumn(c, to);
+        return true;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,307 @@
+package com.ponysdk.core.ui.datagrid.impl;
+
+import com.ponysdk.core.ui.basic.Element;
+import com.ponysdk.core.ui.basic.PFlexTable;
+import com.ponysdk.core.ui.basic.PFlowPanel;
+import com.ponysdk.core.ui.basic.PScrollPanel;
+import com.ponysdk.core.ui.basic.PSimplePanel;
+import com.ponysdk.core.ui.basic.PWidget;
+import com.ponysdk.core.ui.datagrid.View;
+
+/**
+ * A view keeping as widgets only the rows around the viewport : the visible rows plus an overscan
+ * above and below. The other rows are replaced by two spacers of the same height, so the scroll
+ * bar stays the same as with all the rows.
+ * <p>
+ * When the terminal reports a new scroll position, the rows leaving the window are moved to the
+ * other end of the table and drawn again with the next data, so the cell widgets are recycled
+ * through {@link com.ponysdk.core.ui.datagrid.CellRenderer#update(Object, PWidget)}. The server
+ * memory and the instructions sent are proportional to the viewport, not to the number of rows.
+ * <p>
+ * All the rows must have the same height.
+ */
+public class VirtualView implements View {
+
+    private static final int DEFAULT_OVERSCAN = 10;
+
+    private final PFlowPanel panel = Element.newPFlowPanel();
+    private final PFlexTable header = Element.newPFlexTable();
+    private final PScrollPanel scrollPanel = Element.newPScrollPanel();
+    private final PSimplePanel topSpacer = Element.newPSimplePanel();
+    private final PSimplePanel bottomSpacer = Element.newPSimplePanel();
+    private final PFlexTable table = Element.newPFlexTable();
+
+    private final int rowHeight;
+    private final int visibleRows;
+    private final int overscan;
+    // Maximum number of rows kept as widgets
+    private final int capacity;
+
+    private RowDrawer drawer;
+
+    private int rowCount;
+    // The rows [first, first + drawnRows[ are the rows of the table
+    private int first;
+    private int drawnRows;
+    private int topSpacerRows = -1;
+    private int bottomSpacerRows = -1;
+
+    /**
+     * @param rowHeight
+     *            the height of a row in pixels
+     * @param visibleRows
+     *            the number of rows visible in the viewport
+     */
+    public VirtualView(final int rowHeight, final int visibleRows) {
+        this(rowHeight, visibleRows, DEFAULT_OVERSCAN);
+    }
+
+    /**
+     * @param rowHeight
+     *            the height of a row in pixels
+     * @param visibleRows
+     *            the number of rows visible in the viewport
+     * @param overscan
+     *            the number of rows kept as widgets above and below the viewport, to hide the
+     *            round trip of a scroll
+     */
+    public VirtualView(final int rowHeight, final int visibleRows, final int overscan) {
+        this.rowHeight = rowHeight;
+        this.visibleRows = visibleRows;
+        this.overscan = overscan;
+        this.capacity = visibleRows + 2 * overscan;
+
+        final PFlowPanel body = Element.newPFlowPanel();
+        body.add(topSpacer);
+        body.add(table);
+        body.add(bottomSpacer);
+        scrollPanel.setWidget(body);
+        scrollPanel.setHeight(visibleRows * rowHeight + "px");
+        scrollPanel.addScrollHandler(event -> scrollTo(event.getVerticalPosition() / rowHeight));
+
+        panel.add(header);
+        panel.add(scrollPanel);
+        updateSpacers();
+    }
+
+    public int getVisibleRows() {
+        return visibleRows;
+    }
+
+    public int getOverscan() {
+        return overscan;
+    }
+
+    @Override
+    public PWidget asWidget() {
+        return panel;
+    }
+
+    @Override
+    public void setRowDrawer(final RowDrawer drawer) {
+        this.drawer = drawer;
+    }
+
+    @Override
+    public void setHeader(final int c, final PWidget w) {
+        header.setWidget(0, c, w);
+    }
+
+    @Override
+    public PWidget getHeader(final int c) {
+        return header.getWidget(0, c);
+    }
+
+    @Override
+    public boolean isDrawn(final int r) {
+        return r >= first && r < first + drawnRows;
+    }
+
+    @Override
+    public PWidget getCell(final int r, final int c) {
+        return isDrawn(r) ? table.getWidget(r - first, c) : null;
+    }
+
+    @Override
+    public void setCell(final int r, final int c, final PWidget w) {
+        if (isDrawn(r)) table.setWidget(r - first, c, w);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean insertRow(final int r) {
+        rowCount++;
+        insert(r);
+        updateSpacers();
+        return true;
+    }
+
+    @Override
+    public boolean removeRow(final int r) {
+        final boolean drawLastRow = remove(r);
+        rowCount--;
+        if (drawLastRow) draw(first + drawnRows - 1, first + drawnRows);
+        fill();
+        updateSpacers();
+        return true;
+    }
+
+    @Override
+    public boolean insertColumn(final int c) {
+        header.insertColumn(c);
+        table.insertColumn(c);
+        return true;
+    }
+
+    @Override
+    public boolean removeColumn(final int c) {
+        header.removeColumn(c);
+        table.removeColumn(c);
+        return true;
+    }
+
+    @Override
+    public boolean moveColumn(final int c, final int to) {
+        header.moveColumn(c, to);
+        table.moveColumn(c, to);
+        return true;
+    }
+
+    @Override
+    public boolean moveRow(final int r, final int to) {
+        if (isDrawn(r) && isDrawn(to)) {
+            table.moveRow(r - first, to - first);
+        } else {
+            // The row count doesn't change, the last row is drawn once the window is known
+            boolean drawLastRow = remove(r);
+            if (insert(to)) drawLastRow = false;
+            if (drawLastRow) draw(first + drawnRows - 1, first + drawnRows);
+            fill();
+            updateSpacers();
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the row of this index at the top of the overscan above the viewport
+     */
+    private void scrollTo(final int firstVisibleRow) {
+        final int newFirst = Math.max(0, Math.min(firstVisibleRow - overscan, rowCount - capacity));
+        final int shift = newFirst - first;
+        if (shift == 0) return;
+
+        if (Math.abs(shift) < drawnRows) {
+            // The rows still in the window are kept, the others are moved to the other end
+            if (shift > 0) {
+                for (int i = 0; i < shift; i++) {
+                    table.moveRow(0, drawnRows - 1);
+                }
+                first = newFirst;
+                draw(first + drawnRows - shift, first + drawnRows);
+            } else {
+                for (int i = 0; i < -shift; i++) {
+                    table.moveRow(drawnRows - 1, 0);
+                }
+                first = newFirst;
+                draw(first, first - shift);
+            }
+        } else {
+            first = newFirst;
+            draw(first, first + drawnRows);
+        }
+
+        fill();
+        updateSpacers();
+    }
+
+    /**
+     * Called after the row count has been incremented, the grid draws the inserted row
+     *
+     * @return true if the widgets of the last row have been reused for the inserted row
+     */
+    private boolean insert(final int r) {
+        if (r < first) {
+            // The drawn rows don't change, only their index
+            first++;
+        } else if (r <= first + drawnRows) {
+            if (drawnRows < capacity) {
+                table.insertRow(r - first);
+                drawnRows++;
+            } else if (r < first + drawnRows) {
+                // The last row leaves the window
+                table.moveRow(drawnRows - 1, r - first);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called before the row count is decremented
+     *
+     * @return true if the widgets of the removed row have been moved to the last row, that has to
+     *         be drawn with the next row entering the window
+     */
+    private boolean remove(final int r) {
+        if (r < first) {
+            first--;
+        } else if (isDrawn(r)) {
+            if (first + drawnRows < rowCount) {
+                table.moveRow(r - first, drawnRows - 1);
+                return true;
+            } else {
+                table.removeRow(r - first);
+                drawnRows--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws the rows missing at the end of the window after a scroll, or at its beginning after a
+     * removal at the end of the grid
+     */
+    private void fill() {
+        final int expectedRows = Math.min(capacity, rowCount - first);
+        if (drawnRows < expectedRows) {
+            final int fromRow = first + drawnRows;
+            drawnRows = expectedRows;
+            draw(fromRow, first + drawnRows);
+        } else {
+            while (drawnRows > expectedRows) {
+                table.removeRow(--drawnRows);
+            }
+        }
+
+        final int missingRows = Math.min(capacity, rowCount) - drawnRows;
+        if (missingRows > 0) {
+            for (int i = 0; i < missingRows; i++) {
+                table.insertRow(0);
+            }
+            first -= missingRows;
+            drawnRows += missingRows;
+            draw(first, first + missingRows);
+        }
+    }
+
+    private void draw(final int fromRow, final int toRow) {
+        if (drawer != null && fromRow < toRow) drawer.draw(fromRow, toRow);
+    }
+
+    private void updateSpacers() {
+        final int bottomRows = rowCount - first - drawnRows;
+        if (first != topSpacerRows) {
+            topSpacerRows = first;
+            topSpacer.setHeight(topSpacerRows * rowHeight + "px");
+        }
+        if (bottomRows != bottomSpacerRows) {
+            bottomSpacerRows = bottomRows;
+            bottomSpacer.setHeight(bottomSpacerRows * rowHeight + "px");
+        }
+    }
+
+}
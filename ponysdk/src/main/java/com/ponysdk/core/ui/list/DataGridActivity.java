@@ -38,13 +38,22 @@ public class DataGridActivity<D> implements HasPData<D>, IsPWidget {
 
     protected final SimpleListView view;
     protected final List<DataGridColumnDescriptor<D, ?>> columnDescriptors = new ArrayList<>();
-    protected final List<D> rows = new ArrayList<>();
+    protected final List<D> rows;
     private final Map<D, Integer> subListSizeByFather = new HashMap<>();
     protected int dataCount = 0;
     protected int colCount = 0;
 
     public DataGridActivity(final SimpleListView listView) {
+        this(listView, new ArrayList<>());
+    }
+
+    /**
+     * @param rows
+     *            the empty list holding the rows, for subclasses needing a faster lookup
+     */
+    protected DataGridActivity(final SimpleListView listView, final List<D> rows) {
         this.view = listView;
+        this.rows = rows;
     }
 
     public void addDataGridColumnDescriptor(final DataGridColumnDescriptor<D, ?> columnDescriptor) {
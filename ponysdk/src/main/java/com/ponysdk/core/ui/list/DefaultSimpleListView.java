@@ -105,10 +105,12 @@ public class DefaultSimpleListView extends PFlexTable implements SimpleListView
 
     @Override
     public void moveRow(final int index, final int beforeIndex) {
+        super.moveRow(index, beforeIndex);
     }
 
     @Override
     public void moveColumn(final int index, final int beforeIndex) {
+        super.moveColumn(index, beforeIndex);
     }
 
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2011 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.ui.list.refreshable;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ponysdk.core.ui.basic.Element;
+import com.ponysdk.core.ui.basic.IsPWidget;
+import com.ponysdk.core.ui.list.DataGridActivity;
+import com.ponysdk.core.ui.list.DataGridColumnDescriptor;
+import com.ponysdk.core.ui.list.SimpleListView;
+import com.ponysdk.core.ui.list.refreshable.RowStore.Row;
+import com.ponysdk.core.ui.list.renderer.cell.CellRenderer;
+
+/**
+ * Extends {@link DataGridActivity} Capable of moving columns and refreshing the rows by key.<br>
+ * Unlike {@link RefreshableDataGrid}, whose rows are refreshed by index, a row is found by key in
+ * O(1) and by index in O(log n), and it is inserted, updated, moved or removed in O(log n) without
+ * touching the other rows. The cells hold the value of their column.
+ *
+ * @param <K>
+ * @param <D>
+ */
+public class KeyedRefreshableDataGrid<K, D> extends DataGridActivity<D> {
+
+    private final RowStore<K, D> store;
+    // Index of the cell of a column in the cells of a row, kept when the column moves
+    private final Map<DataGridColumnDescriptor<D, ?>, Integer> cellIndexByColumn = new IdentityHashMap<>();
+
+    public KeyedRefreshableDataGrid(final SimpleListView listView) {
+        this(listView, new RowStore<>());
+    }
+
+    private KeyedRefreshableDataGrid(final SimpleListView listView, final RowStore<K, D> store) {
+        super(listView, store);
+        this.store = store;
+    }
+
+    @Override
+    public void addDataGridColumnDescriptor(final DataGridColumnDescriptor<D, ?> columnDescriptor) {
+        super.addDataGridColumnDescriptor(columnDescriptor);
+        cellIndexByColumn.put(columnDescriptor, cellIndexByColumn.size());
+    }
+
+    /**
+     * Updates the row of the key, or adds it after the last row if the key is not displayed yet
+     */
+    public void putData(final K key, final D data) {
+        final Row<K, D> row = store.getRowByKey(key);
+        if (row == null) addData(store.size(), key, data);
+        else updateData(row, data);
+    }
+
+    /**
+     * Adds the row of the key at the index, or updates it and moves it to the index if the key is
+     * already displayed. An index beyond the last row is the last row.
+     */
+    public void putData(final int rowIndex, final K key, final D data) {
+        final Row<K, D> row = store.getRowByKey(key);
+        if (row == null) {
+            addData(Math.min(rowIndex, store.size()), key, data);
+        } else {
+            moveData(row, Math.min(rowIndex, store.size() - 1));
+            updateData(row, data);
+        }
+    }
+
+    /**
+     * Moves the row of the key to the index, the rows between shift by one
+     *
+     * @return false if the key is not displayed
+     */
+    public boolean moveData(final K key, final int rowIndex) {
+        final Row<K, D> row = store.getRowByKey(key);
+        if (row == null) return false;
+        moveData(row, rowIndex);
+        return true;
+    }
+
+    /**
+     * @return the data displayed for the key, null if the key is not displayed
+     */
+    public D getData(final K key) {
+        final Row<K, D> row = store.getRowByKey(key);
+        return row != null ? row.data : null;
+    }
+
+    /**
+     * @return the index of the row of the key, -1 if the key is not displayed
+     */
+    public int getRowIndex(final K key) {
+        final Row<K, D> row = store.getRowByKey(key);
+        return row != null ? store.indexOf(row) : -1;
+    }
+
+    /**
+     * @return the index of the row displaying this very instance in O(log n), otherwise the index of
+     *         the first row displaying an equal data in O(n)
+     */
+    @Override
+    public int getModelRowIndex(final D data) {
+        final Row<K, D> row = store.getRowByData(data);
+        return row != null ? store.indexOf(row) : super.getModelRowIndex(data);
+    }
+
+    /**
+     * @return the index of the removed row, -1 if the key is not displayed
+     */
+    public int removeByKey(final K key) {
+        final Row<K, D> row = store.getRowByKey(key);
+        if (row == null) return -1;
+        final int removed = store.indexOf(row);
+        remove(removed);
+        return removed;
+    }
+
+    public void moveColumn(final int from, final int to) {
+        if (from != to) {
+            final DataGridColumnDescriptor<D, ?> object = columnDescriptors.remove(from);
+            columnDescriptors.add(to, object);
+            view.moveColumn(from, to);
+        }
+    }
+
+    @Override
+    public void clear() {
+        view.clear(1);
+        rows.clear();
+        dataCount = 0;
+    }
+
+    @Override
+    public void setData(final int row, final D data) {
+        throw new RuntimeException("Use putData(key, data)");
+    }
+
+    @Override
+    public void setData(final List<D> data) {
+        throw new RuntimeException("Use putData(key, data)");
+    }
+
+    @Override
+    public void remove(final D data) {
+        throw new RuntimeException("Use removeByKey(key)");
+    }
+
+    private void addData(final int rowIndex, final K key, final D data) {
+        if (rowIndex < store.size()) view.insertRow(rowIndex + 1);
+
+        final Row<K, D> row = store.insert(rowIndex, key, data);
+        row.cells = new Cell<?, ?>[cellIndexByColumn.size()];
+        dataCount++;
+
+        int col = 0;
+
+        for (final DataGridColumnDescriptor<D, ?> descriptor : columnDescriptors) {
+            final Cell<?, ?> cell = render(descriptor, rowIndex, data);
+            row.cells[cellIndexByColumn.get(descriptor)] = cell;
+            view.addWidget(cell.getWidget(), col++, rowIndex + 1, 1);
+        }
+        view.addWidget(Element.newPSimplePanel(), col, rowIndex + 1, 1);
+    }
+
+    private void moveData(final Row<K, D> row, final int rowIndex) {
+        final int previousIndex = store.indexOf(row);
+        if (rowIndex != previousIndex) {
+            store.move(row, rowIndex);
+            view.moveRow(previousIndex + 1, rowIndex + 1);
+        }
+    }
+
+    private void updateData(final Row<K, D> row, final D data) {
+        store.setData(row, data);
+
+        for (final DataGridColumnDescriptor<D, ?> descriptor : columnDescriptors) {
+            final int cellIndex = cellIndexByColumn.get(descriptor);
+            // The columns added after the row have no cell
+            if (cellIndex < row.cells.length) update(descriptor, row.cells[cellIndex], data);
+        }
+    }
+
+    private static <D, V> Cell<V, ? extends IsPWidget> render(final DataGridColumnDescriptor<D, V> descriptor, final int row,
+            final D data) {
+        return render(descriptor.getCellRenderer(), row, descriptor.getValueProvider().getValue(data));
+    }
+
+    private static <V, W extends IsPWidget> Cell<V, W> render(final CellRenderer<V, W> renderer, final int row, final V value) {
+        final Cell<V, W> cell = new Cell<>();
+        cell.setData(value);
+        cell.setWidget(renderer.render(row, value));
+        return cell;
+    }
+
+    private static <D, V> void update(final DataGridColumnDescriptor<D, V> descriptor, final Cell<?, ?> cell, final D data) {
+        update(descriptor.getCellRenderer(), cell, descriptor.getValueProvider().getValue(data));
+    }
+
+    // The cells of a column are only rendered by its renderer, see render()
+    @SuppressWarnings("unchecked")
+    private static <V, W extends IsPWidget> void update(final CellRenderer<V, W> renderer, final Cell<?, ?> cell, final V value) {
+        final Cell<V, W> current = (Cell<V, W>) cell;
+        renderer.update(value, current);
+        current.setData(value);
+    }
+
+}
@@ -36,11 +36,18 @@ import java.util.Map;
 
 /**
  * Extends {@link DataGridActivity} Capable of moving columns and refreshing a set of rows instead
- * of always refreshing the entire grid
+ * of always refreshing the entire grid.<br>
+ * The rows are refreshed by index : finding or removing a row by key and finding the index of a
+ * data scan the rows, and a removal re-keys the following rows, all in O(n).
  *
  * @param <K>
  * @param <D>
+ * @deprecated Use {@link KeyedRefreshableDataGrid}, whose rows are inserted, updated, moved and
+ *             removed by key in O(log n) with
+ *             {@link KeyedRefreshableDataGrid#putData(int, Object, Object) putData} and
+ *             {@link KeyedRefreshableDataGrid#removeByKey(Object) removeByKey}
  */
+@Deprecated
 public class RefreshableDataGrid<K, D> extends DataGridActivity<D> {
 
     protected final Map<Integer, Map<DataGridColumnDescriptor<D, ?>, Cell<D, ? extends IsPWidget>>> cells = new HashMap<>();
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2011 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.ui.list.refreshable;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Rows of a {@link KeyedRefreshableDataGrid}, a rope giving the row at an index, the index of a row
+ * and the insertion or removal at any index in O(log n), and the row of a key or of a data
+ * instance in O(1).<br>
+ * An implicit treap whose nodes are the rows themselves : each node knows the size of its subtree,
+ * the index of a row is computed by walking up to the root, and the row at an index by walking
+ * down.
+ */
+final class RowStore<K, D> extends AbstractList<D> {
+
+    static final class Row<K, D> {
+
+        final K key;
+        D data;
+        // Cells by column, see KeyedRefreshableDataGrid#addDataGridColumnDescriptor
+        Cell<?, ?>[] cells;
+
+        private Row<K, D> parent;
+        private Row<K, D> left;
+        private Row<K, D> right;
+        private int size = 1;
+        private int priority;
+
+        private Row(final K key, final D data) {
+            this.key = key;
+            this.data = data;
+        }
+
+    }
+
+    private final Map<K, Row<K, D>> rowByKey = new HashMap<>();
+    // By identity, the data are not required to have a stable hash code
+    private final Map<D, Row<K, D>> rowByData = new IdentityHashMap<>();
+
+    private Row<K, D> root;
+
+    // xorshift, the priorities only have to be random enough to keep the tree balanced
+    private int seed = 0x9E3779B9;
+
+    Row<K, D> getRowByKey(final K key) {
+        return rowByKey.get(key);
+    }
+
+    /**
+     * @return the row holding this very instance, the last one set if several rows hold it, null if
+     *         none
+     */
+    Row<K, D> getRowByData(final D data) {
+        return rowByData.get(data);
+    }
+
+    Row<K, D> getRow(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        Row<K, D> node = root;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * @param row
+     *            A row of this store
+     */
+    int indexOf(final Row<K, D> row) {
+        int index = size(row.left);
+        for (Row<K, D> node = row; node.parent != null; node = node.parent) {
+            if (node.parent.right == node) index += size(node.parent.left) + 1;
+        }
+        return index;
+    }
+
+    /**
+     * @param key
+     *            the key of the row, null for a row without key
+     */
+    Row<K, D> insert(final int index, final K key, final D data) {
+        if (index < 0 || index > size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        final Row<K, D> row = new Row<>(key, data);
+        if (key != null && rowByKey.putIfAbsent(key, row) != null) throw new IllegalArgumentException("Duplicate key : " + key);
+        if (data != null) rowByData.put(data, row);
+        link(index, row);
+        modCount++;
+        return row;
+    }
+
+    /**
+     * @param row
+     *            A row of this store
+     */
+    void remove(final Row<K, D> row) {
+        unlink(row);
+        if (row.key != null) rowByKey.remove(row.key);
+        if (row.data != null) rowByData.remove(row.data, row);
+        modCount++;
+    }
+
+    /**
+     * @param row
+     *            A row of this store
+     */
+    void move(final Row<K, D> row, final int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        unlink(row);
+        link(index, row);
+        modCount++;
+    }
+
+    /**
+     * @param row
+     *            A row of this store
+     * @return the previous data of the row
+     */
+    D setData(final Row<K, D> row, final D data) {
+        final D previous = row.data;
+        if (previous != null) rowByData.remove(previous, row);
+        if (data != null) rowByData.put(data, row);
+        row.data = data;
+        return previous;
+    }
+
+    @Override
+    public D get(final int index) {
+        return getRow(index).data;
+    }
+
+    @Override
+    public D set(final int index, final D data) {
+        return setData(getRow(index), data);
+    }
+
+    @Override
+    public void add(final int index, final D data) {
+        insert(index, null, data);
+    }
+
+    @Override
+    public D remove(final int index) {
+        final Row<K, D> row = getRow(index);
+        remove(row);
+        return row.data;
+    }
+
+    /**
+     * Linear, as required by the {@link java.util.List#indexOf(Object)} contract the first equal
+     * data is searched, see {@link #getRowByData(Object)} for a lookup of an instance
+     */
+    @Override
+    public int indexOf(final Object o) {
+        int index = 0;
+        for (final D data : this) {
+            if (Objects.equals(o, data)) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        rowByKey.clear();
+        rowByData.clear();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<D> iterator() {
+        return new Iterator<D>() {
+
+            private Row<K, D> next = root != null ? first(root) : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public D next() {
+                if (next == null) throw new NoSuchElementException();
+                final Row<K, D> current = next;
+                next = successor(current);
+                return current.data;
+            }
+        };
+    }
+
+    private void link(final int index, final Row<K, D> row) {
+        row.left = row.right = row.parent = null;
+        row.size = 1;
+        row.priority = nextPriority();
+
+        if (root == null) {
+            root = row;
+            return;
+        }
+
+        // Descends to the leaf position of the index, the row is then rotated up to its priority
+        Row<K, D> parent = root;
+        int i = index;
+        while (true) {
+            parent.size++;
+            final int leftSize = size(parent.left);
+            if (i <= leftSize) {
+                if (parent.left == null) {
+                    parent.left = row;
+                    break;
+                }
+                parent = parent.left;
+            } else {
+                i -= leftSize + 1;
+                if (parent.right == null) {
+                    parent.right = row;
+                    break;
+                }
+                parent = parent.right;
+            }
+        }
+        row.parent = parent;
+
+        while (row.parent != null && row.parent.priority < row.priority) {
+            rotateUp(row);
+        }
+    }
+
+    private void unlink(final Row<K, D> row) {
+        // Rotated down until it is a leaf or has a single child
+        while (row.left != null && row.right != null) {
+            rotateUp(row.left.priority > row.right.priority ? row.left : row.right);
+        }
+
+        final Row<K, D> child = row.left != null ? row.left : row.right;
+        final Row<K, D> parent = row.parent;
+        if (child != null) child.parent = parent;
+        if (parent == null) root = child;
+        else if (parent.left == row) parent.left = child;
+        else parent.right = child;
+
+        for (Row<K, D> node = parent; node != null; node = node.parent) {
+            node.size--;
+        }
+        row.left = row.right = row.parent = null;
+    }
+
+    private static <K, D> Row<K, D> first(Row<K, D> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static <K, D> Row<K, D> successor(Row<K, D> node) {
+        if (node.right != null) return first(node.right);
+        while (node.parent != null && node.parent.right == node) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    /**
+     * Rotates the node above its parent, the sizes of both are updated
+     */
+    private void rotateUp(final Row<K, D> node) {
+        final Row<K, D> parent = node.parent;
+        final Row<K, D> grandParent = parent.parent;
+        if (parent.left == node) {
+            parent.left = node.right;
+            if (node.right != null) node.right.parent = parent;
+            node.right = parent;
+        } else {
+            parent.right = node.left;
+            if (node.left != null) node.left.parent = parent;
+            node.left = parent;
+        }
+        parent.parent = node;
+        node.parent = grandParent;
+        if (grandParent == null) root = node;
+        else if (grandParent.left == parent) grandParent.left = node;
+        else grandParent.right = node;
+
+        node.size = parent.size;
+        parent.size = size(parent.left) + size(parent.right) + 1;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static int size(final Row<?, ?> node) {
+        return node != null ? node.size : 0;
+    }
+
+}
@@ -23,19 +23,187 @@
 
 package com.ponysdk.core.writer;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
 import com.ponysdk.core.model.ServerToClientModel;
 import com.ponysdk.core.server.servlet.WebsocketEncoder;
 
 public class ModelWriter {
 
+    /**
+     * Models whose last value overrides the previous ones, so only the last one is sent when the
+     * updates are coalesced
+     */
+    private static final Set<ServerToClientModel> IDEMPOTENT_MODELS = EnumSet.of(ServerToClientModel.TEXT, ServerToClientModel.HTML,
+        ServerToClientModel.INNER_TEXT, ServerToClientModel.INNER_HTML, ServerToClientModel.VALUE, ServerToClientModel.VALUE_CHECKBOX,
+        ServerToClientModel.ENABLED, ServerToClientModel.STYLE_NAME, ServerToClientModel.WIDGET_WIDTH,
+        ServerToClientModel.WIDGET_HEIGHT, ServerToClientModel.WIDGET_TITLE, ServerToClientModel.WIDGET_VISIBLE,
+        ServerToClientModel.WORD_WRAP, ServerToClientModel.PLACEHOLDER, ServerToClientModel.HREF, ServerToClientModel.URL,
+        ServerToClientModel.MAX_LENGTH, ServerToClientModel.VISIBLE_LENGTH, ServerToClientModel.VISIBLE_ITEM_COUNT,
+        ServerToClientModel.SELECTED_INDEX, ServerToClientModel.TABINDEX, ServerToClientModel.WINDOW_TITLE,
+        ServerToClientModel.POPUP_CAPTION, ServerToClientModel.HORIZONTAL_SCROLL_POSITION,
+        ServerToClientModel.VERTICAL_SCROLL_POSITION);
+
+    /**
+     * Instructions that neither read nor change the state set by the updates of the existing
+     * objects, the buffered updates are kept across them until the transaction is flushed
+     */
+    private static final Set<ServerToClientModel> UPDATE_INDEPENDENT_INSTRUCTIONS = EnumSet.of(ServerToClientModel.TYPE_CREATE,
+        ServerToClientModel.TYPE_ADD_HANDLER);
+
+    /**
+     * Instructions that only depend on the state of the object they target : the buffered updates
+     * of this object, and of the parent object if any, are written first. Any other instruction
+     * writes all the buffered updates first.
+     */
+    private static final Set<ServerToClientModel> OBJECT_INSTRUCTIONS = EnumSet.of(ServerToClientModel.TYPE_UPDATE,
+        ServerToClientModel.TYPE_ADD, ServerToClientModel.TYPE_REMOVE, ServerToClientModel.TYPE_REMOVE_HANDLER,
+        ServerToClientModel.TYPE_GC);
+
     private final WebsocketEncoder encoder;
 
+    // Buffered updates by object ID, in the order of the first update of each object
+    private final Map<Integer, ObjectUpdates> bufferedUpdates = new LinkedHashMap<>();
+    // Not overridden buffered updates
+    private int bufferedUpdateCount;
+    private boolean writingUpdates;
+
+    // While updates are buffered, a block is kept until its end tells which buffered updates are written before it
+    private final List<Object> pendingBlock = new ArrayList<>();
+    private boolean blockPending;
+
+    private boolean updateCoalescing;
+    private boolean conflating;
+    private int maxConflatedUpdates = Integer.MAX_VALUE;
+    private boolean overflowed;
+
     public ModelWriter(final WebsocketEncoder encoder) {
         this.encoder = encoder;
     }
 
+    public boolean isUpdateCoalescing() {
+        return updateCoalescing;
+    }
+
+    public void setUpdateCoalescing(final boolean updateCoalescing) {
+        this.updateCoalescing = updateCoalescing;
+    }
+
+    public boolean isConflating() {
+        return conflating;
+    }
+
+    /**
+     * While conflating, the updates are buffered like with the coalescing but the transaction
+     * flushes don't write them, so only the last value of the idempotent models is sent when the
+     * conflation stops
+     */
+    public void setConflating(final boolean conflating) {
+        this.conflating = conflating;
+    }
+
+    /**
+     * @param maxConflatedUpdates
+     *            maximum number of updates buffered while conflating, see {@link #isOverflowed()}
+     */
+    public void setMaxConflatedUpdates(final int maxConflatedUpdates) {
+        this.maxConflatedUpdates = maxConflatedUpdates;
+    }
+
+    /**
+     * The terminal has stayed congested while more than the maximum number of conflated updates
+     * were made, they can't be sent anymore. The buffered updates and the next ones are dropped,
+     * the terminal has to be closed.
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    public boolean isBufferingUpdates() {
+        return updateCoalescing || conflating;
+    }
+
+    /**
+     * @return the number of buffered updates, the overridden ones excluded
+     */
+    public int getBufferedUpdateCount() {
+        return bufferedUpdateCount;
+    }
+
+    /**
+     * Buffers an update of an object until {@link #flushUpdates()}. All the updates of an object
+     * are written in a single block, in the order they were made.<br>
+     * An update of an idempotent model overrides the previous update of this model of the object,
+     * unless an update of the object whose model is unknown was made in between, since it can
+     * write anything that observes the value (e.g. a script).
+     *
+     * @param model
+     *            the only model written by the callback, null if unknown
+     * @param envelope
+     *            writes the update block of the object around the given callback
+     */
+    public void bufferUpdate(final int objectID, final ServerToClientModel model, final ModelWriterCallback callback,
+                             final Consumer<ModelWriterCallback> envelope) {
+        if (!isBufferingUpdates()) {
+            envelope.accept(callback);
+            return;
+        }
+        if (overflowed) return;
+
+        ObjectUpdates objectUpdates = bufferedUpdates.get(objectID);
+        if (objectUpdates == null) {
+            objectUpdates = new ObjectUpdates(envelope);
+            bufferedUpdates.put(objectID, objectUpdates);
+        }
+        if (objectUpdates.add(model, callback)) bufferedUpdateCount++;
+
+        if (conflating && bufferedUpdateCount > maxConflatedUpdates) {
+            overflowed = true;
+            bufferedUpdates.clear();
+            bufferedUpdateCount = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered updates, it is done before the instructions that could depend on them
+     * and when the transaction is flushed
+     */
+    public void flushUpdates() {
+        if (bufferedUpdates.isEmpty()) return;
+
+        final List<ObjectUpdates> updates = new ArrayList<>(bufferedUpdates.values());
+        bufferedUpdates.clear();
+        bufferedUpdateCount = 0;
+        updates.forEach(this::writeUpdates);
+    }
+
+    private void flushUpdates(final Object objectID) {
+        final ObjectUpdates updates = bufferedUpdates.remove(objectID);
+        if (updates == null) return;
+        bufferedUpdateCount -= updates.size();
+        writeUpdates(updates);
+    }
+
+    private void writeUpdates(final ObjectUpdates updates) {
+        // The update blocks don't wait for the other buffered updates
+        writingUpdates = true;
+        try {
+            updates.envelope.accept(updates);
+        } finally {
+            writingUpdates = false;
+        }
+    }
+
     public void beginObject() {
-        encoder.beginObject();
+        if (bufferedUpdates.isEmpty() || writingUpdates) encoder.beginObject();
+        else blockPending = true;
     }
 
     public void write(final ServerToClientModel model) {
@@ -43,11 +211,115 @@ public class ModelWriter {
     }
 
     public void write(final ServerToClientModel model, final Object value) {
-        encoder.encode(model, value);
+        if (blockPending) {
+            pendingBlock.add(model);
+            pendingBlock.add(value);
+        } else {
+            encoder.encode(model, value);
+        }
     }
 
     public void endObject() {
+        if (blockPending) {
+            blockPending = false;
+            final Object[] block = pendingBlock.toArray();
+            pendingBlock.clear();
+
+            flushUpdatesBefore(block);
+            encoder.beginObject();
+            for (int i = 0; i < block.length; i += 2) {
+                encoder.encode((ServerToClientModel) block[i], block[i + 1]);
+            }
+        }
         encoder.endObject();
     }
 
+    /**
+     * Writes the buffered updates the block depends on
+     *
+     * @param block
+     *            the models of the block, each followed by its value
+     */
+    private void flushUpdatesBefore(final Object[] block) {
+        ServerToClientModel typeModel = null;
+        Object objectID = null;
+        Object parentObjectID = null;
+        for (int i = 0; i < block.length; i += 2) {
+            final ServerToClientModel model = (ServerToClientModel) block[i];
+            if (ServerToClientModel.PARENT_OBJECT_ID == model) {
+                parentObjectID = block[i + 1];
+            } else if (typeModel == null && ServerToClientModel.WINDOW_ID != model && ServerToClientModel.FRAME_ID != model) {
+                typeModel = model;
+                objectID = block[i + 1];
+            }
+        }
+
+        if (OBJECT_INSTRUCTIONS.contains(typeModel)) flushUpdates(objectID);
+        else if (!UPDATE_INDEPENDENT_INSTRUCTIONS.contains(typeModel)) flushUpdates();
+        if (parentObjectID != null) flushUpdates(parentObjectID);
+    }
+
+    private static final class ObjectUpdates implements ModelWriterCallback {
+
+        private final Consumer<ModelWriterCallback> envelope;
+        // The overridden updates are set to null
+        private final List<ModelWriterCallback> callbacks = new ArrayList<>();
+        // Index of the last update by idempotent model, since the last update of unknown model
+        private final Map<ServerToClientModel, Integer> lastUpdates = new EnumMap<>(ServerToClientModel.class);
+        private int overriddenCount;
+
+        ObjectUpdates(final Consumer<ModelWriterCallback> envelope) {
+            this.envelope = envelope;
+        }
+
+        /**
+         * @return false if the update overrides a previous one
+         */
+        boolean add(final ServerToClientModel model, final ModelWriterCallback callback) {
+            boolean added = true;
+            if (model == null) {
+                lastUpdates.clear();
+            } else if (IDEMPOTENT_MODELS.contains(model)) {
+                final Integer previous = lastUpdates.put(model, callbacks.size());
+                if (previous != null) {
+                    callbacks.set(previous, null);
+                    overriddenCount++;
+                    added = false;
+                }
+            }
+            callbacks.add(callback);
+
+            // Long conflations override the same models again and again
+            if (overriddenCount > 64 && overriddenCount > callbacks.size() >> 1) compact();
+            return added;
+        }
+
+        int size() {
+            return callbacks.size() - overriddenCount;
+        }
+
+        private void compact() {
+            final int[] newIndexes = new int[callbacks.size()];
+            int size = 0;
+            for (int i = 0; i < callbacks.size(); i++) {
+                final ModelWriterCallback callback = callbacks.get(i);
+                if (callback != null) {
+                    newIndexes[i] = size;
+                    callbacks.set(size++, callback);
+                }
+            }
+            callbacks.subList(size, callbacks.size()).clear();
+            overriddenCount = 0;
+            lastUpdates.replaceAll((model, index) -> newIndexes[index]);
+        }
+
+        @Override
+        public void doWrite(final ModelWriter writer) {
+            for (final ModelWriterCallback callback : callbacks) {
+                if (callback != null) callback.doWrite(writer);
+            }
+        }
+
+    }
+
 }
@@ -112,7 +112,10 @@ public class PonySDKServer {
         context.setContextPath("/" + applicationManagerOption.getApplicationContextName());
 
         context.addServlet(new ServletHolder(createBootstrapServlet()), MAPPING_BOOTSTRAP);
-        context.addServlet(new ServletHolder(createStreamServiceServlet()), MAPPING_STREAM);
+        final ServletHolder streamServiceHolder = new ServletHolder(createStreamServiceServlet());
+        // The stream requests are handled asynchronously with ExecutionMode.VIRTUAL_THREAD
+        streamServiceHolder.setAsyncSupported(true);
+        context.addServlet(streamServiceHolder, MAPPING_STREAM);
         context.addServlet(new ServletHolder(createAjaxServlet()), MAPPING_AJAX);
         context.addServlet(new ServletHolder(createWebSocketServlet()), MAPPING_WS);
 
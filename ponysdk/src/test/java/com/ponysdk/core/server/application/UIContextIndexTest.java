@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.server.application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ponysdk.core.server.servlet.DetachedWebSocket;
+import com.ponysdk.core.server.stm.TxnContext;
+
+public class UIContextIndexTest {
+
+    private static final Application application;
+
+    static {
+        final ApplicationManagerOption options = new ApplicationManagerOption();
+        options.setDebugMode(true);
+        application = new Application("test", null, options, null);
+    }
+
+    private static UIContext newUIContext() {
+        final TxnContext context = new TxnContext(new DetachedWebSocket());
+        context.setApplication(application);
+        final UIContext uiContext = new UIContext(context);
+        context.setUIContext(uiContext);
+        return uiContext;
+    }
+
+    @Test
+    public void uiContextIsRegisteredAgainAfterItsChunkIsEmpty() {
+        final UIContextIndex index = UIContextIndex.get();
+        final UIContext first = newUIContext();
+        // Never registered, like a UIContext whose startup failed
+        newUIContext();
+        final UIContext third = newUIContext();
+
+        index.register(first);
+        index.unregister(first);
+        assertNull(index.getUIContext(first.getID()));
+
+        index.register(third);
+        assertSame(third, index.getUIContext(third.getID()));
+        index.unregister(third);
+        assertNull(index.getUIContext(third.getID()));
+    }
+
+    @Test
+    public void concurrentRegistrationsAreAllIndexed() throws InterruptedException {
+        final UIContextIndex index = UIContextIndex.get();
+        final int initialSize = index.size();
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        final UIContext uiContext = newUIContext();
+                        index.register(uiContext);
+                        assertSame(uiContext, index.getUIContext(uiContext.getID()));
+                        index.unregister(uiContext);
+                        assertNull(index.getUIContext(uiContext.getID()));
+                    }
+                } catch (final Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(new ArrayList<Throwable>(), failures);
+        assertEquals(initialSize, index.size());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.server.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AutoFlushedBufferTest {
+
+    /**
+     * Holds the flushed data until {@link #complete()} is called, like a slow terminal
+     */
+    private static class StalledBuffer extends AutoFlushedBuffer {
+
+        private ByteBuffer pending;
+
+        StalledBuffer() {
+            // 64 bytes, 16 bytes chunks, congested when less than 16 bytes are free
+            super(64, false, 16, 0.25f, TimeUnit.SECONDS.toMillis(1));
+        }
+
+        StalledBuffer(final DirectBufferPool pool) {
+            super(64, 64, pool, 16, 0.25f, TimeUnit.SECONDS.toMillis(1));
+        }
+
+        @Override
+        protected void doFlush(final ByteBuffer bufferToFlush) {
+            pending = bufferToFlush;
+        }
+
+        @Override
+        protected void closeFlusher() {
+        }
+
+        void complete() {
+            while (pending != null) {
+                final ByteBuffer buffer = pending;
+                pending = null;
+                buffer.position(buffer.limit());
+                onFlushCompletion();
+            }
+        }
+
+        void fail() {
+            pending = null;
+            onFlushFailure(new IOException("Connection lost"));
+        }
+
+        void write(final int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                put((byte) i);
+            }
+        }
+
+    }
+
+    @Test
+    public void idleBufferIsNotCongested() {
+        final StalledBuffer buffer = new StalledBuffer();
+        assertFalse(buffer.shouldOnlyWriteUrgentMessages());
+    }
+
+    @Test
+    public void flushedBufferIsNotCongested() throws IOException {
+        final StalledBuffer buffer = new StalledBuffer();
+        buffer.write(40);
+        buffer.flush();
+        buffer.complete();
+        assertFalse(buffer.shouldOnlyWriteUrgentMessages());
+    }
+
+    @Test
+    public void pendingFlushOverThresholdIsCongested() throws IOException {
+        final StalledBuffer buffer = new StalledBuffer();
+        buffer.write(8);
+        buffer.flush();
+        assertFalse(buffer.shouldOnlyWriteUrgentMessages());
+
+        buffer.write(42);
+        buffer.flush();
+        assertTrue(buffer.shouldOnlyWriteUrgentMessages());
+
+        buffer.complete();
+        assertFalse(buffer.shouldOnlyWriteUrgentMessages());
+    }
+
+    @Test
+    public void bufferIsReleasedWhenClosedAfterFlushFailure() throws IOException {
+        final DirectBufferPool pool = new DirectBufferPool(1 << 10);
+        final StalledBuffer buffer = new StalledBuffer(pool);
+        assertEquals(64, pool.getUsedSize());
+
+        buffer.write(8);
+        buffer.flush();
+        buffer.fail();
+        buffer.close();
+        assertEquals(0, pool.getUsedSize());
+    }
+
+}
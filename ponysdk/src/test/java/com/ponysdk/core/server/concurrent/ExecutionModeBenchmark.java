@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.ponysdk.core.server.application.Application;
+import com.ponysdk.core.server.application.ApplicationManagerOption;
+import com.ponysdk.core.server.application.ExecutionMode;
+import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.servlet.DetachedWebSocket;
+import com.ponysdk.core.server.stm.TxnContext;
+
+/**
+ * Compares the throughput of the {@link ExecutionMode}s : the tasks are scheduled with
+ * {@link PScheduler} on real UIContexts, so they are run by the PScheduler workers with the lock of
+ * the UIContext for {@link ExecutionMode#LOCK} and by the {@link UIContextMailbox} otherwise. Each
+ * task blocks for a while, like a JDBC call, 0 only measures the cost of the transactions.
+ * <p>
+ * Usage : <code>ExecutionModeBenchmark [&lt;contexts&gt; [&lt;tasks per context&gt; [&lt;blocking time in ms&gt;]]]</code>
+ * <br>
+ * The pools are sized with the <code>pscheduler.thread.count</code> and
+ * <code>uicontext.mailbox.thread.count</code> system properties.
+ * <p>
+ * Results on JDK 17 with 1 CPU, where {@link ExecutionMode#VIRTUAL_THREAD} is not supported :
+ *
+ * <pre>
+ * 100 contexts x 4 tasks blocking 50 ms, 1 thread     LOCK     19 tasks/s   MAILBOX     20 tasks/s
+ * 1000 contexts x 4 tasks blocking 50 ms, 8 threads   LOCK     78 tasks/s   MAILBOX    159 tasks/s
+ * 100 contexts x 100 tasks blocking 0 ms, 1 thread    LOCK  39467 tasks/s   MAILBOX  71334 tasks/s
+ * </pre>
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(final String[] args) throws InterruptedException {
+        final int contexts = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        final int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final long blockingTime = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        System.out.println(contexts + " contexts, " + tasks + " tasks per context blocking " + blockingTime + " ms");
+
+        for (final ExecutionMode mode : ExecutionMode.values()) {
+            if (mode == ExecutionMode.VIRTUAL_THREAD && !VirtualThreads.isSupported()) {
+                System.out.println("  " + mode + " : not supported by this runtime");
+                continue;
+            }
+            run(mode, newUIContexts(mode, contexts), tasks, blockingTime);
+        }
+    }
+
+    private static List<UIContext> newUIContexts(final ExecutionMode mode, final int count) {
+        final ApplicationManagerOption options = new ApplicationManagerOption();
+        options.setExecutionMode(mode);
+        // No terminal answers the heart beats
+        options.setDebugMode(true);
+        final Application application = new Application(mode.name(), null, options, null);
+
+        final List<UIContext> uiContexts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final TxnContext context = new TxnContext(new DetachedWebSocket());
+            context.setApplication(application);
+            final UIContext uiContext = new UIContext(context);
+            context.setUIContext(uiContext);
+            uiContexts.add(uiContext);
+        }
+        return uiContexts;
+    }
+
+    private static void run(final ExecutionMode mode, final List<UIContext> uiContexts, final int tasks, final long blockingTime)
+            throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(uiContexts.size() * tasks);
+        final long start = System.nanoTime();
+        for (final UIContext uiContext : uiContexts) {
+            for (int i = 0; i < tasks; i++) {
+                PScheduler.schedule(uiContext, () -> {
+                    try {
+                        if (blockingTime > 0) Thread.sleep(blockingTime);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    latch.countDown();
+                });
+            }
+        }
+        latch.await();
+        final long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("  %-30s %10.0f tasks/s %10d ms", mode, uiContexts.size() * tasks * 1_000_000_000d / elapsed,
+            TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    }
+
+}
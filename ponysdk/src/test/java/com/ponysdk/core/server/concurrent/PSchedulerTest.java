@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ponysdk.core.server.application.Application;
+import com.ponysdk.core.server.application.ApplicationManagerOption;
+import com.ponysdk.core.server.application.ExecutionMode;
+import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.servlet.DetachedWebSocket;
+import com.ponysdk.core.server.stm.TxnContext;
+
+public class PSchedulerTest {
+
+    private static UIContext newUIContext(final ExecutionMode mode) {
+        final ApplicationManagerOption options = new ApplicationManagerOption();
+        options.setExecutionMode(mode);
+        // No terminal answers the heart beats
+        options.setDebugMode(true);
+        final TxnContext context = new TxnContext(new DetachedWebSocket());
+        context.setApplication(new Application(mode.name(), null, options, null));
+        final UIContext uiContext = new UIContext(context);
+        context.setUIContext(uiContext);
+        return uiContext;
+    }
+
+    @Test
+    public void taskScheduledFromAMailboxTaskRunsAfterIt() throws InterruptedException {
+        final UIContext uiContext = newUIContext(ExecutionMode.MAILBOX);
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        uiContext.execute(() -> {
+            PScheduler.schedule(uiContext, () -> {
+                events.add("scheduled task");
+                latch.countDown();
+            });
+            events.add("caller returned");
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("caller returned", "scheduled task"), events);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.server.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.model.ClientValueTypeModel;
+
+public class ClientDataDecoderTest {
+
+    private static final byte OBJECT_ID = (byte) ClientToServerModel.OBJECT_ID.ordinal();
+    private static final byte INTEGER = ClientValueTypeModel.INTEGER.getValue();
+    private static final byte ARRAY = ClientValueTypeModel.ARRAY.getValue();
+    private static final byte VALUE_KEY = (byte) ClientToServerModel.VALUE_KEY.ordinal();
+    private static final byte JSON = ClientValueTypeModel.JSON.getValue();
+
+    private static JsonObject decode(final byte... frame) {
+        return ClientDataDecoder.decode(frame, 0, frame.length);
+    }
+
+    @Test
+    public void decodesAnObject() {
+        // {OBJECT_ID : 3}, 3 being zigzag encoded
+        final JsonObject jsonObject = decode((byte) 1, OBJECT_ID, INTEGER, (byte) 6);
+        assertEquals(3, jsonObject.getInt(ClientToServerModel.OBJECT_ID.toStringValue()));
+    }
+
+    @Test
+    public void decodesAValueWhenItIsRead() {
+        // {OBJECT_ID : 3, VALUE_KEY : JSON "{"}, the malformed JSON is only reported when it is read
+        final JsonObject jsonObject = decode((byte) 2, OBJECT_ID, INTEGER, (byte) 6, VALUE_KEY, JSON, (byte) 1, (byte) '{');
+        assertEquals(3, jsonObject.getInt(ClientToServerModel.OBJECT_ID.toStringValue()));
+        assertTrue(jsonObject.containsKey(ClientToServerModel.VALUE_KEY.toStringValue()));
+        try {
+            jsonObject.get(ClientToServerModel.VALUE_KEY.toStringValue());
+        } catch (final IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError("The malformed value was not reported");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsATruncatedNestedValue() {
+        // The values are skipped but still checked : {OBJECT_ID : [STRING of 4 bytes]} with 1 byte
+        decode((byte) 1, OBJECT_ID, ARRAY, (byte) 1, ClientValueTypeModel.STRING.getValue(), (byte) 4, (byte) 'a');
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownModel() {
+        decode((byte) 1, (byte) 0xFF, INTEGER, (byte) 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownValueType() {
+        decode((byte) 1, OBJECT_ID, (byte) 0x7F);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsATruncatedFrame() {
+        decode((byte) 1, OBJECT_ID, ClientValueTypeModel.DOUBLE.getValue(), (byte) 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsASizeLargerThanTheFrame() {
+        decode((byte) 1, OBJECT_ID, ARRAY, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyNestedValues() {
+        final byte[] frame = new byte[1024];
+        frame[0] = 1;
+        frame[1] = OBJECT_ID;
+        for (int i = 2; i < frame.length - 1; i += 2) {
+            frame[i] = ARRAY;
+            frame[i + 1] = 1;
+        }
+        decode(frame);
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+
+import com.ponysdk.core.model.ClientToServerModel;
+import com.ponysdk.core.model.DomHandlerType;
+
+/**
+ * Compares the parsing of the instructions sent by the terminals with {@link Json#createReader}
+ * and with the {@link ClientDataParser}, in messages per second and allocated bytes per message.
+ * <p>
+ * The messages are read from the recorded files, one text frame per line, as saved from the
+ * network tab of the browser. Without file, click, key up and scroll messages are replayed.
+ * <p>
+ * Usage : <code>ClientDataParserBenchmark [&lt;messages file&gt;...]</code>
+ */
+public class ClientDataParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private static long blackhole;
+
+    public static void main(final String[] args) throws IOException {
+        final List<String> messages = new ArrayList<>();
+        if (args.length == 0) {
+            messages.add(clickMessage());
+            messages.add(keyUpMessage());
+            messages.add(scrollMessage());
+        } else {
+            for (final String file : args) {
+                for (final String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty()) messages.add(line.trim());
+                }
+            }
+        }
+        System.out.println(messages.size() + " messages replayed");
+
+        final Function<String, JsonObject> reader = text -> {
+            try (JsonReader jsonReader = Json.createReader(new StringReader(text))) {
+                return jsonReader.readObject();
+            }
+        };
+        run("JsonReader", messages, reader, WARMUP_ITERATIONS);
+        run("ClientDataParser", messages, ClientDataParser::parse, WARMUP_ITERATIONS);
+        run("JsonReader", messages, reader, ITERATIONS);
+        run("ClientDataParser", messages, ClientDataParser::parse, ITERATIONS);
+    }
+
+    private static void run(final String name, final List<String> messages, final Function<String, JsonObject> parser,
+                            final int iterations) {
+        final long threadID = Thread.currentThread().getId();
+        final long startBytes = allocatedBytes(threadID);
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            dispatch(parser.apply(messages.get(i % messages.size())));
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long bytes = allocatedBytes(threadID) - startBytes;
+        if (iterations == WARMUP_ITERATIONS) return;
+
+        System.out.println(String.format("  %-20s %12.0f messages/s %10d bytes/message", name, iterations * 1_000_000_000d / elapsed,
+            bytes < 0 ? -1 : bytes / iterations));
+    }
+
+    private static long allocatedBytes(final long threadID) {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadID);
+        else return -1;
+    }
+
+    /**
+     * Reads the instructions like {@link com.ponysdk.core.server.application.UIContext#fireClientData(JsonObject)}
+     * and the widgets do
+     */
+    private static void dispatch(final JsonObject message) {
+        final JsonArray instructions = message.getJsonArray(ClientToServerModel.APPLICATION_INSTRUCTIONS.toStringValue());
+        if (instructions == null) return;
+        for (int i = 0; i < instructions.size(); i++) {
+            final JsonObject instruction = instructions.getJsonObject(i);
+            if (instruction.containsKey(ClientToServerModel.TYPE_HISTORY.toStringValue())) continue;
+            blackhole += instruction.getJsonNumber(ClientToServerModel.OBJECT_ID.toStringValue()).intValue();
+            for (final ClientToServerModel model : ClientToServerModel.values()) {
+                final JsonValue value = instruction.get(model.toStringValue());
+                if (value != null) blackhole += read(value);
+            }
+        }
+    }
+
+    private static long read(final JsonValue value) {
+        if (ValueType.NUMBER == value.getValueType()) {
+            return ((JsonNumber) value).longValue();
+        } else if (ValueType.STRING == value.getValueType()) {
+            return ((JsonString) value).getString().length();
+        } else if (ValueType.ARRAY == value.getValueType()) {
+            long result = 0;
+            for (final JsonValue item : (JsonArray) value) {
+                result += read(item);
+            }
+            return result;
+        } else {
+            return value.getValueType().ordinal();
+        }
+    }
+
+    private static String message(final JsonObjectBuilder... instructions) {
+        final JsonArrayBuilder array = Json.createArrayBuilder();
+        for (final JsonObjectBuilder instruction : instructions) {
+            array.add(instruction);
+        }
+        return Json.createObjectBuilder().add(ClientToServerModel.APPLICATION_INSTRUCTIONS.toStringValue(), array).build().toString();
+    }
+
+    private static JsonObjectBuilder instruction(final int objectID) {
+        return Json.createObjectBuilder().add(ClientToServerModel.OBJECT_ID.toStringValue(), objectID);
+    }
+
+    private static String clickMessage() {
+        return message(instruction(1254).add(ClientToServerModel.DOM_HANDLER_TYPE.toStringValue(), DomHandlerType.CLICK.getValue())
+            .add(ClientToServerModel.EVENT_INFO.toStringValue(), Json.createArrayBuilder().add(812).add(377).add(42).add(11).add(1))
+            .add(ClientToServerModel.WIDGET_POSITION.toStringValue(), Json.createArrayBuilder().add(770).add(366).add(24).add(120)));
+    }
+
+    private static String keyUpMessage() {
+        return message(instruction(3310).add(ClientToServerModel.HANDLER_STRING_VALUE_CHANGE.toStringValue(), "Pony"),
+            instruction(3310).add(ClientToServerModel.DOM_HANDLER_TYPE.toStringValue(), DomHandlerType.KEY_UP.getValue())
+                .add(ClientToServerModel.VALUE_KEY.toStringValue(), 89));
+    }
+
+    private static String scrollMessage() {
+        return message(instruction(87).add(ClientToServerModel.HANDLER_SCROLL.toStringValue(), "")
+            .add(ClientToServerModel.HANDLER_SCROLL_HEIGHT.toStringValue(), 14_320)
+            .add(ClientToServerModel.HANDLER_SCROLL_WIDTH.toStringValue(), 0)
+            .add(ClientToServerModel.HANDLER_SCROLL_VERTICAL.toStringValue(), 5_184)
+            .add(ClientToServerModel.HANDLER_SCROLL_HORIZONTAL.toStringValue(), 0));
+    }
+
+}
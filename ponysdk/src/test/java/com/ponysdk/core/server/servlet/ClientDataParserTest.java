@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import org.junit.Test;
+
+public class ClientDataParserTest {
+
+    private static JsonObject read(final String text) {
+        try (JsonReader reader = Json.createReader(new StringReader(text))) {
+            return reader.readObject();
+        }
+    }
+
+    @Test
+    public void parsesLikeTheJsonReader() {
+        final String text = "{\"o\": 12, \"a\" : [1, -2.5, 1e3, 12345678901, \"x\\\"y\\u00e9\\n\", true, false, null, {}, []],"
+                + " \"s\":\"\", \"n\":{\"k\":{\"l\":[{\"m\":\"]}\"}]}}}";
+        final JsonObject expected = read(text);
+        final JsonObject jsonObject = ClientDataParser.parse(text);
+        assertEquals(expected, jsonObject);
+        assertEquals(expected.toString(), jsonObject.toString());
+    }
+
+    @Test
+    public void readsTheKeysBeforeTheValues() {
+        // The malformed value is only reported when it is accessed
+        final JsonObject jsonObject = ClientDataParser.parse("{\"o\":3,\"v\":[1,2x]}");
+        assertEquals(3, jsonObject.getInt("o"));
+        assertTrue(jsonObject.containsKey("v"));
+        final JsonArray array = jsonObject.getJsonArray("v");
+        assertEquals(1, array.getInt(0));
+        try {
+            array.get(1);
+        } catch (final IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError("The malformed value was not reported");
+    }
+
+    @Test
+    public void readsAValueOnce() {
+        final JsonObject jsonObject = ClientDataParser.parse("{\"v\":{\"a\":1}}");
+        final JsonValue value = jsonObject.get("v");
+        assertTrue(value == jsonObject.get("v"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnArray() {
+        ClientDataParser.parse("[1]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnterminatedObject() {
+        ClientDataParser.parse("{\"o\":[1,2}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingSeparator() {
+        ClientDataParser.parse("{\"o\":1 \"v\":2}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTrailingCharacters() {
+        ClientDataParser.parse("{\"o\":1}}");
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.server.servlet;
+
+import com.ponysdk.core.model.ProtocolVersion;
+import com.ponysdk.core.model.ServerToClientModel;
+
+/**
+ * WebSocket without session : the encoded data are dropped and the socket is never congested, so
+ * the transactions of a UIContext can be run outside of a servlet container
+ */
+public class DetachedWebSocket extends WebSocket {
+
+    public DetachedWebSocket() {
+        super(null, null, null);
+    }
+
+    @Override
+    public void encode(final ServerToClientModel model, final Object value) {
+    }
+
+    @Override
+    public boolean isCongested() {
+        return false;
+    }
+
+    @Override
+    public ProtocolVersion getProtocolVersion() {
+        return ProtocolVersion.CURRENT;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.server.servlet;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.json.Json;
+import javax.json.JsonReader;
+
+import com.ponysdk.core.model.ProtocolVersion;
+import com.ponysdk.core.model.ServerToClientModel;
+import com.ponysdk.core.server.application.ApplicationManagerOption;
+
+/**
+ * Replays a recorded session through the encoder of each protocol version and prints the number
+ * of bytes and frames that would have been sent.
+ * <p>
+ * The recorded session is the concatenation of the binary frames received by a terminal using the
+ * {@link ProtocolVersion#LEGACY} version, as saved from the network tab of the browser.
+ * <p>
+ * Usage : <code>WebSocketEncodingComparator &lt;session file&gt; [&lt;session file&gt;...]</code>
+ */
+public class WebSocketEncodingComparator {
+
+    private static final ServerToClientModel[] SERVER_TO_CLIENT_MODELS = ServerToClientModel.values();
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = 1 << 12;
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage : WebSocketEncodingComparator <session file> [<session file>...]");
+            return;
+        }
+
+        for (final String file : args) {
+            final ByteBuffer session = ByteBuffer.wrap(Files.readAllBytes(Paths.get(file)));
+            System.out.println(file + " : " + session.remaining() + " bytes recorded");
+
+            long legacySize = -1;
+            for (final ProtocolVersion protocolVersion : ProtocolVersion.values()) {
+                final CountingPusher pusher = new CountingPusher(protocolVersion);
+                replay(session.duplicate(), pusher);
+                if (legacySize == -1) legacySize = pusher.bytes;
+                System.out.println(String.format("  %-20s %10d bytes %8d frames %6.1f%%", protocolVersion, pusher.bytes,
+                    pusher.frames, legacySize == 0 ? 100d : pusher.bytes * 100d / legacySize));
+            }
+        }
+    }
+
+    private static void replay(final ByteBuffer session, final WebSocketPusher pusher) {
+        while (session.hasRemaining()) {
+            final ServerToClientModel model = SERVER_TO_CLIENT_MODELS[session.getShort()];
+            pusher.encode(model, readValue(session, model));
+            if (ServerToClientModel.END == model) pusher.flush();
+        }
+        pusher.flush();
+    }
+
+    /**
+     * Read a value encoded with the {@link ProtocolVersion#LEGACY} version
+     */
+    private static Object readValue(final ByteBuffer session, final ServerToClientModel model) {
+        switch (model.getTypeModel()) {
+            case NULL:
+                return null;
+            case BOOLEAN:
+                return session.get() == 1;
+            case BYTE:
+                return session.get();
+            case SHORT:
+                return session.getShort();
+            case INTEGER:
+                return session.getInt();
+            case LONG:
+                return Long.parseLong(readString(session));
+            case DOUBLE:
+                return Double.parseDouble(readString(session));
+            case STRING:
+                return readString(session);
+            case JSON_OBJECT:
+                try (JsonReader reader = Json.createReader(new StringReader(readString(session)))) {
+                    return reader.readObject();
+                }
+            case INTEGER_ARRAY:
+                final int[] values = new int[session.getInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = session.getInt();
+                }
+                return values;
+            default:
+                throw new IllegalArgumentException("Unknown type model : " + model.getTypeModel());
+        }
+    }
+
+    private static String readString(final ByteBuffer session) {
+        final int size = session.getInt();
+        final String value = new String(session.array(), session.arrayOffset() + session.position(), size, StandardCharsets.UTF_8);
+        session.position(session.position() + size);
+        return value;
+    }
+
+    private static class CountingPusher extends WebSocketPusher {
+
+        private long bytes;
+        private long frames;
+
+        CountingPusher(final ProtocolVersion protocolVersion) {
+            super(null, BUFFER_SIZE, MAX_CHUNK_SIZE, Long.MAX_VALUE);
+            setProtocolVersion(protocolVersion);
+            setStringDictionarySize(new ApplicationManagerOption().getStringDictionarySize());
+        }
+
+        @Override
+        protected void doFlush(final ByteBuffer bufferToFlush) {
+            bytes += bufferToFlush.remaining();
+            frames++;
+            bufferToFlush.position(bufferToFlush.limit());
+            onFlushCompletion();
+        }
+
+        @Override
+        protected void closeFlusher() {
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.ponysdk.core.ui.datagrid;
+
+import java.util.Random;
+
+import com.ponysdk.core.ui.basic.PWidget;
+
+/**
+ * Measures the throughput of {@link DataGrid#setData(Comparable)} on grids of 1k, 10k and 100k
+ * rows, with a view and a renderer doing nothing, so only the cost of the grid itself is measured.
+ * <ul>
+ * <li>in place : the sort key of the updated row doesn't change</li>
+ * <li>small move : the updated row moves of a few positions, like a blotter sorted by price</li>
+ * </ul>
+ * Usage : <code>DataGridBenchmark [&lt;updates&gt;]</code>
+ */
+public class DataGridBenchmark {
+
+    private static final int[] ROW_COUNTS = { 1_000, 10_000, 100_000 };
+
+    public static void main(final String[] args) {
+        final int updates = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        // Warm up
+        run(ROW_COUNTS[1], updates, false);
+        run(ROW_COUNTS[1], updates, true);
+
+        for (final int rowCount : ROW_COUNTS) {
+            System.out.println(String.format("%7d rows : in place %10.0f updates/s ; small move %10.0f updates/s", rowCount,
+                run(rowCount, updates, false), run(rowCount, updates, true)));
+        }
+    }
+
+    private static double run(final int rowCount, final int updates, final boolean move) {
+        final DataGrid<Quote> grid = new DataGrid<>(new NoOpView(), quote -> quote.id);
+        final ColumnDescriptor<Quote> column = new ColumnDescriptor<>();
+        column.setHeaderRenderer(() -> null);
+        column.setCellRenderer(new NoOpCellRenderer());
+        grid.addColumnDescriptor(column);
+
+        final Random random = new Random(rowCount);
+        final long[] prices = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            prices[i] = i * 10L;
+            grid.setData(new Quote(i, prices[i]));
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            final int id = random.nextInt(rowCount);
+            // Up to 3 rows away
+            if (move) prices[id] += (random.nextInt(61) - 30);
+            grid.setData(new Quote(id, prices[id]));
+        }
+        return updates * 1_000_000_000d / (System.nanoTime() - start);
+    }
+
+    private static final class Quote implements Comparable<Quote> {
+
+        private final int id;
+        private final long price;
+
+        Quote(final int id, final long price) {
+            this.id = id;
+            this.price = price;
+        }
+
+        @Override
+        public int compareTo(final Quote other) {
+            final int result = Long.compare(price, other.price);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+
+    }
+
+    private static final class NoOpView implements View {
+
+        @Override
+        public PWidget asWidget() {
+            return null;
+        }
+
+        @Override
+        public void setHeader(final int c, final PWidget w) {
+        }
+
+        @Override
+        public void setCell(final int r, final int c, final PWidget w) {
+        }
+
+        @Override
+        public int getRowCount() {
+            return 0;
+        }
+
+        @Override
+        public PWidget getHeader(final int r) {
+            return null;
+        }
+
+        @Override
+        public PWidget getCell(final int r, final int c) {
+            return null;
+        }
+
+        @Override
+        public boolean insertRow(final int r) {
+            return true;
+        }
+
+        @Override
+        public boolean removeRow(final int r) {
+            return true;
+        }
+
+        @Override
+        public boolean moveRow(final int r, final int to) {
+            return true;
+        }
+
+        @Override
+        public boolean insertColumn(final int c) {
+            return true;
+        }
+
+        @Override
+        public boolean removeColumn(final int c) {
+            return true;
+        }
+
+        @Override
+        public boolean moveColumn(final int c, final int to) {
+            return true;
+        }
+
+    }
+
+    private static final class NoOpCellRenderer implements CellRenderer<Quote> {
+
+        @Override
+        public PWidget render(final Quote value) {
+            return null;
+        }
+
+        @Override
+        public PWidget update(final Quote value, final PWidget current) {
+            return current;
+        }
+
+        @Override
+        public void reset(final PWidget widget) {
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.ponysdk.core.ui.datagrid.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ponysdk.core.model.ServerToClientModel;
+import com.ponysdk.core.server.application.Application;
+import com.ponysdk.core.server.application.ApplicationManagerOption;
+import com.ponysdk.core.server.application.UIContext;
+import com.ponysdk.core.server.servlet.DetachedWebSocket;
+import com.ponysdk.core.server.stm.TxnContext;
+import com.ponysdk.core.ui.basic.Element;
+import com.ponysdk.core.ui.basic.PWindow;
+
+public class DefaultViewTest {
+
+    private static final Application application;
+
+    static {
+        final ApplicationManagerOption options = new ApplicationManagerOption();
+        // No terminal answers the heart beats
+        options.setDebugMode(true);
+        application = new Application("test", null, options, null);
+    }
+
+    private final List<Integer> insertedRows = new ArrayList<>();
+    // Rows of the terminal table : the inserted ones and the ones created for a widget
+    private int terminalRowCount;
+
+    private UIContext uiContext;
+    private DefaultView view;
+
+    @Before
+    public void setUp() {
+        final TxnContext context = new TxnContext(new DetachedWebSocket() {
+
+            @Override
+            public void encode(final ServerToClientModel model, final Object value) {
+                if (ServerToClientModel.INSERT_ROW == model) {
+                    final int row = (int) value;
+                    // Like the GWT FlexTable, a row can't be inserted after the last one
+                    assertTrue("Row " + row + " inserted in a table of " + terminalRowCount + " rows", row <= terminalRowCount);
+                    insertedRows.add(row);
+                    terminalRowCount++;
+                } else if (ServerToClientModel.ROW == model) {
+                    terminalRowCount = Math.max(terminalRowCount, (int) value + 1);
+                }
+            }
+        });
+        context.setApplication(application);
+        uiContext = new UIContext(context);
+        context.setUIContext(uiContext);
+        uiContext.execute(() -> {
+            view = new DefaultView();
+            PWindow.getMain().add(view.asWidget());
+        });
+    }
+
+    @Test
+    public void headerRowIsInsertedBeforeTheFirstRowOfAnEmptyGrid() {
+        uiContext.execute(() -> {
+            view.insertRow(0);
+            view.setCell(0, 0, Element.newPLabel("cell"));
+            view.insertRow(0);
+        });
+        assertEquals(Arrays.asList(0, 1, 1), insertedRows);
+        assertEquals(3, terminalRowCount);
+    }
+
+    @Test
+    public void rowIsInsertedAfterTheExistingHeaderRow() {
+        uiContext.execute(() -> {
+            view.setHeader(0, Element.newPLabel("header"));
+            view.insertRow(0);
+        });
+        assertEquals(Arrays.asList(1), insertedRows);
+        assertEquals(2, terminalRowCount);
+    }
+
+}
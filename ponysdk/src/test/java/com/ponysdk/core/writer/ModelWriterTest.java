@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2017 PonySDK
+ *  Owners:
+ *  Luciano Broussal  <luciano.broussal AT gmail.com>
+ *  Mathieu Barbier   <mathieu.barbier AT gmail.com>
+ *  Nicolas Ciaravola <nicolas.ciaravola.pro AT gmail.com>
+ *
+ *  WebSite:
+ *  http://code.google.com/p/pony-sdk/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.ponysdk.core.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ponysdk.core.model.ServerToClientModel;
+import com.ponysdk.core.server.servlet.WebsocketEncoder;
+
+public class ModelWriterTest {
+
+    private final List<String> written = new ArrayList<>();
+
+    private ModelWriter writer;
+
+    @Before
+    public void setUp() {
+        writer = new ModelWriter(new WebsocketEncoder() {
+
+            @Override
+            public void beginObject() {
+            }
+
+            @Override
+            public void encode(final ServerToClientModel model, final Object value) {
+                written.add(model + "=" + value);
+            }
+
+            @Override
+            public void endObject() {
+                written.add("END");
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+        writer.setUpdateCoalescing(true);
+    }
+
+    private void update(final int objectID, final ServerToClientModel model, final Object value) {
+        writer.bufferUpdate(objectID, model, w -> w.write(model, value), callback -> {
+            writer.beginObject();
+            writer.write(ServerToClientModel.TYPE_UPDATE, objectID);
+            callback.doWrite(writer);
+            writer.endObject();
+        });
+    }
+
+    private void script(final int objectID) {
+        tableUpdate(objectID, ServerToClientModel.EVAL, "script");
+    }
+
+    /**
+     * Update whose model is unknown to the writer, like the structural changes of a table
+     */
+    private void tableUpdate(final int objectID, final ServerToClientModel model, final Object value) {
+        writer.bufferUpdate(objectID, null, w -> w.write(model, value), callback -> {
+            writer.beginObject();
+            writer.write(ServerToClientModel.TYPE_UPDATE, objectID);
+            callback.doWrite(writer);
+            writer.endObject();
+        });
+    }
+
+    private void add(final int objectID, final int parentObjectID) {
+        writer.beginObject();
+        writer.write(ServerToClientModel.TYPE_ADD, objectID);
+        writer.write(ServerToClientModel.PARENT_OBJECT_ID, parentObjectID);
+        writer.write(ServerToClientModel.ROW, 0);
+        writer.write(ServerToClientModel.COLUMN, 0);
+        writer.endObject();
+    }
+
+    private void instruction(final ServerToClientModel typeModel, final int objectID) {
+        writer.beginObject();
+        writer.write(ServerToClientModel.WINDOW_ID, 2);
+        writer.write(typeModel, objectID);
+        writer.endObject();
+    }
+
+    @Test
+    public void lastValueOfIdempotentModelIsWritten() {
+        update(1, ServerToClientModel.TEXT, "a");
+        update(2, ServerToClientModel.TEXT, "b");
+        update(1, ServerToClientModel.TEXT, "c");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "TEXT=c", "END", "TYPE_UPDATE=2", "TEXT=b", "END"), written);
+    }
+
+    @Test
+    public void updatesOfAnObjectAreWrittenInASingleBlock() {
+        update(1, ServerToClientModel.ADD_STYLE_NAME, "a1");
+        update(2, ServerToClientModel.ADD_STYLE_NAME, "b1");
+        update(1, ServerToClientModel.ADD_STYLE_NAME, "a2");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "ADD_STYLE_NAME=a1", "ADD_STYLE_NAME=a2", "END", "TYPE_UPDATE=2",
+            "ADD_STYLE_NAME=b1", "END"), written);
+    }
+
+    @Test
+    public void observedValueIsNotOverridden() {
+        update(1, ServerToClientModel.TEXT, "a");
+        script(1);
+        update(1, ServerToClientModel.TEXT, "b");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "TEXT=a", "EVAL=script", "TEXT=b", "END"), written);
+    }
+
+    @Test
+    public void updateOfAnotherObjectDoesNotObserveTheValue() {
+        update(1, ServerToClientModel.TEXT, "a");
+        script(2);
+        update(1, ServerToClientModel.TEXT, "b");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "TEXT=b", "END", "TYPE_UPDATE=2", "EVAL=script", "END"), written);
+    }
+
+    @Test
+    public void insertedRowIsWrittenBeforeTheWidgetAddedInIt() {
+        // PHTMLTable.insertRow() then setWidget() in the new row
+        tableUpdate(1, ServerToClientModel.INSERT_ROW, 0);
+        add(3, 1);
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "INSERT_ROW=0", "END", "TYPE_ADD=3", "PARENT_OBJECT_ID=1", "ROW=0", "COLUMN=0",
+            "END"), written);
+    }
+
+    @Test
+    public void movedRowIsWrittenBeforeTheWidgetAddedInIt() {
+        // PHTMLTable.moveRow() then setWidget() in the moved row
+        tableUpdate(1, ServerToClientModel.MOVE_ROW, 2);
+        add(3, 1);
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "MOVE_ROW=2", "END", "TYPE_ADD=3", "PARENT_OBJECT_ID=1", "ROW=0", "COLUMN=0",
+            "END"), written);
+    }
+
+    @Test
+    public void updatesAreKeptAcrossIndependentInstructions() {
+        update(1, ServerToClientModel.TEXT, "a");
+        instruction(ServerToClientModel.TYPE_CREATE, 3);
+        update(1, ServerToClientModel.TEXT, "b");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("WINDOW_ID=2", "TYPE_CREATE=3", "END", "TYPE_UPDATE=1", "TEXT=b", "END"), written);
+    }
+
+    @Test
+    public void updatesAreWrittenBeforeOtherInstructions() {
+        update(1, ServerToClientModel.TEXT, "a");
+        instruction(ServerToClientModel.TYPE_REMOVE, 1);
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "TEXT=a", "END", "WINDOW_ID=2", "TYPE_REMOVE=1", "END"), written);
+    }
+
+    @Test
+    public void otherModelsDoNotObserveTheValue() {
+        update(1, ServerToClientModel.TEXT, "a");
+        update(1, ServerToClientModel.ADD_STYLE_NAME, "s");
+        update(1, ServerToClientModel.TEXT, "b");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=1", "ADD_STYLE_NAME=s", "TEXT=b", "END"), written);
+    }
+
+    @Test
+    public void onlyTheUpdatesOfTheParentAreWrittenBeforeAnAdd() {
+        update(1, ServerToClientModel.TEXT, "a");
+        tableUpdate(2, ServerToClientModel.INSERT_ROW, 0);
+        add(3, 2);
+        update(1, ServerToClientModel.TEXT, "b");
+        writer.flushUpdates();
+
+        assertEquals(Arrays.asList("TYPE_UPDATE=2", "INSERT_ROW=0", "END", "TYPE_ADD=3", "PARENT_OBJECT_ID=2", "ROW=0", "COLUMN=0",
+            "END", "TYPE_UPDATE=1", "TEXT=b", "END"), written);
+    }
+
+    @Test
+    public void conflatedIdempotentUpdatesStayBounded() {
+        writer.setConflating(true);
+        writer.setMaxConflatedUpdates(100);
+        for (int i = 0; i < 100_000; i++) {
+            update(i % 10, ServerToClientModel.TEXT, i);
+            update(i % 10, ServerToClientModel.WIDGET_WIDTH, i);
+        }
+
+        assertEquals(20, writer.getBufferedUpdateCount());
+        assertFalse(writer.isOverflowed());
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void floodedCongestedSessionOverflows() {
+        writer.setConflating(true);
+        writer.setMaxConflatedUpdates(1000);
+        for (int i = 0; i < 100_000; i++) {
+            update(i % 10, ServerToClientModel.TEXT, i);
+            update(i % 10, ServerToClientModel.ADD_STYLE_NAME, i);
+            assertTrue(writer.getBufferedUpdateCount() <= 1000);
+        }
+
+        assertTrue(writer.isOverflowed());
+        assertEquals(0, writer.getBufferedUpdateCount());
+        assertTrue(written.isEmpty());
+    }
+
+}